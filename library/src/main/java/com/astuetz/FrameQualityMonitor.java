@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2013 Andreas Stuetz <andreas.stuetz@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.astuetz;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.view.Choreographer;
+
+/**
+ * Watches frame intervals while the pager scrolls and asks for a lower quality level whenever too many
+ * frames in a window missed their vsync deadline. Needs API 16, callers check the version before
+ * creating it.
+ */
+@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+class FrameQualityMonitor implements Choreographer.FrameCallback {
+
+	interface Listener {
+		void onFramesDropped();
+	}
+
+	// a frame counts as dropped if it took longer than this many vsync intervals
+	private static final float DROP_FACTOR = 1.5f;
+	private static final int WINDOW_FRAMES = 30;
+	private static final int DROPS_PER_WINDOW = 3;
+
+	private final Listener listener;
+	private final long dropThresholdNanos;
+	private final Choreographer choreographer = Choreographer.getInstance();
+
+	private boolean running = false;
+	private long lastFrameNanos = 0L;
+	private int frames = 0;
+	private int drops = 0;
+
+	FrameQualityMonitor(float refreshRate, Listener listener) {
+		this.listener = listener;
+		float rate = refreshRate >= 1f ? refreshRate : 60f;
+		dropThresholdNanos = (long) (DROP_FACTOR * 1000000000L / rate);
+	}
+
+	void start() {
+		if (running) {
+			return;
+		}
+		running = true;
+		lastFrameNanos = 0L;
+		frames = 0;
+		drops = 0;
+		choreographer.postFrameCallback(this);
+	}
+
+	void stop() {
+		if (!running) {
+			return;
+		}
+		running = false;
+		choreographer.removeFrameCallback(this);
+	}
+
+	@Override
+	public void doFrame(long frameTimeNanos) {
+		if (!running) {
+			return;
+		}
+
+		if (lastFrameNanos != 0L) {
+			frames++;
+			if (frameTimeNanos - lastFrameNanos > dropThresholdNanos) {
+				drops++;
+			}
+			if (drops >= DROPS_PER_WINDOW) {
+				frames = 0;
+				drops = 0;
+				listener.onFramesDropped();
+			} else if (frames >= WINDOW_FRAMES) {
+				frames = 0;
+				drops = 0;
+			}
+		}
+		lastFrameNanos = frameTimeNanos;
+
+		choreographer.postFrameCallback(this);
+	}
+}
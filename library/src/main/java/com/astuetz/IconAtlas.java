@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2013 Andreas Stuetz <andreas.stuetz@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.astuetz;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+
+/**
+ * All tab icons packed into one bitmap, one square cell per position, so the GPU uploads a single
+ * texture for the whole strip and draws every icon from it.
+ */
+class IconAtlas {
+
+	// stays below the maximum texture size of every GPU we support
+	static final int MAX_SIZE = 2048;
+
+	private final int cellSize;
+	private final int columns;
+	private final Bitmap bitmap;
+	private final Canvas canvas;
+	private final Rect src = new Rect();
+	private final Rect dst = new Rect();
+	private final Rect savedBounds = new Rect();
+
+	static boolean fits(int count, int cellSize) {
+		int columns = MAX_SIZE / cellSize;
+		return cellSize > 0 && count > 0 && count <= columns * columns;
+	}
+
+	/**
+	 * Creates an atlas for {@code count} icons, reusing the bitmap of {@code previous} if it has the
+	 * same size.
+	 */
+	IconAtlas(int count, int cellSize, IconAtlas previous) {
+		this.cellSize = cellSize;
+		columns = (int) Math.ceil(Math.sqrt(count));
+		int rows = (count + columns - 1) / columns;
+
+		int width = columns * cellSize;
+		int height = rows * cellSize;
+		if (previous != null && previous.bitmap.getWidth() == width && previous.bitmap.getHeight() == height) {
+			bitmap = previous.bitmap;
+			bitmap.eraseColor(0);
+		} else {
+			if (previous != null) {
+				previous.recycle();
+			}
+			bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+		}
+		canvas = new Canvas(bitmap);
+	}
+
+	/**
+	 * Draws {@code drawable} centered into the cell of {@code position}, scaled to fit like an
+	 * ImageView would.
+	 */
+	void put(int position, Drawable drawable) {
+		if (drawable == null) {
+			return;
+		}
+
+		int left = (position % columns) * cellSize;
+		int top = (position / columns) * cellSize;
+
+		// the adapter may share or cache the drawable, so it gets its own bounds back
+		drawable.copyBounds(savedBounds);
+
+		int width = drawable.getIntrinsicWidth();
+		int height = drawable.getIntrinsicHeight();
+		if (width <= 0 || height <= 0) {
+			drawable.setBounds(left, top, left + cellSize, top + cellSize);
+		} else {
+			float scale = Math.min((float) cellSize / width, (float) cellSize / height);
+			int scaledWidth = Math.round(width * scale);
+			int scaledHeight = Math.round(height * scale);
+			int x = left + (cellSize - scaledWidth) / 2;
+			int y = top + (cellSize - scaledHeight) / 2;
+			drawable.setBounds(x, y, x + scaledWidth, y + scaledHeight);
+		}
+		drawable.draw(canvas);
+		drawable.setBounds(savedBounds);
+	}
+
+	void draw(Canvas target, int position, int left, int top, int size, Paint paint) {
+		int cellLeft = (position % columns) * cellSize;
+		int cellTop = (position / columns) * cellSize;
+		src.set(cellLeft, cellTop, cellLeft + cellSize, cellTop + cellSize);
+		dst.set(left, top, left + size, top + size);
+		target.drawBitmap(bitmap, src, dst, paint);
+	}
+
+	int getBytes() {
+		return IconBitmapPool.sizeOf(bitmap);
+	}
+
+	void recycle() {
+		bitmap.recycle();
+	}
+}
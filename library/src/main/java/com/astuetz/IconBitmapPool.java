@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2013 Andreas Stuetz <andreas.stuetz@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.astuetz;
+
+import android.annotation.TargetApi;
+import android.graphics.Bitmap;
+import android.os.Build;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bounded pool of mutable ARGB_8888 bitmaps whose pixel buffers are reused for tab icons. Bitmaps
+ * that would push the pool over its byte limit are recycled instead of kept.
+ */
+class IconBitmapPool {
+
+	private final List<Bitmap> bitmaps = new ArrayList<Bitmap>();
+	private final int maxBytes;
+	private int bytes = 0;
+
+	IconBitmapPool(int maxBytes) {
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Returns a pooled bitmap of exactly {@code width} x {@code height}, or null if none can be reused.
+	 * From KitKat on any pooled bitmap with a large enough buffer is reconfigured to the requested size.
+	 */
+	@TargetApi(Build.VERSION_CODES.KITKAT)
+	Bitmap acquire(int width, int height) {
+		boolean reconfigurable = Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT;
+		int needed = width * height * 4;
+
+		for (int i = bitmaps.size() - 1; i >= 0; i--) {
+			Bitmap bitmap = bitmaps.get(i);
+			if (bitmap.getWidth() == width && bitmap.getHeight() == height) {
+				return take(i);
+			}
+			if (reconfigurable && bitmap.getAllocationByteCount() >= needed) {
+				bitmap = take(i);
+				bitmap.reconfigure(width, height, Bitmap.Config.ARGB_8888);
+				return bitmap;
+			}
+		}
+		return null;
+	}
+
+	void release(Bitmap bitmap) {
+		if (bitmap == null || bitmap.isRecycled()) {
+			return;
+		}
+
+		int size = sizeOf(bitmap);
+		if (!bitmap.isMutable() || bitmap.getConfig() != Bitmap.Config.ARGB_8888 || bytes + size > maxBytes) {
+			bitmap.recycle();
+			return;
+		}
+
+		bitmaps.add(bitmap);
+		bytes += size;
+	}
+
+	void clear() {
+		for (int i = 0; i < bitmaps.size(); i++) {
+			bitmaps.get(i).recycle();
+		}
+		bitmaps.clear();
+		bytes = 0;
+	}
+
+	int getBytes() {
+		return bytes;
+	}
+
+	private Bitmap take(int index) {
+		Bitmap bitmap = bitmaps.remove(index);
+		bytes -= sizeOf(bitmap);
+		return bitmap;
+	}
+
+	@TargetApi(Build.VERSION_CODES.KITKAT)
+	static int sizeOf(Bitmap bitmap) {
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+			return bitmap.getAllocationByteCount();
+		}
+		return bitmap.getByteCount();
+	}
+}
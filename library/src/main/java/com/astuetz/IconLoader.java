@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2013 Andreas Stuetz <andreas.stuetz@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.astuetz;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+
+/**
+ * Produces tab icon bitmaps at exactly the icon size instead of keeping full resolution images around
+ * that are only scaled down at draw time. Pixel buffers come from an {@link IconBitmapPool}.
+ */
+class IconLoader {
+
+	private final Resources resources;
+	private final IconBitmapPool pool;
+	private final Canvas canvas = new Canvas();
+	private final Rect savedBounds = new Rect();
+
+	IconLoader(Resources resources, IconBitmapPool pool) {
+		this.resources = resources;
+		this.pool = pool;
+	}
+
+	/**
+	 * Decodes {@code resId} so its larger side is {@code size} px. Returns null if the resource is not
+	 * a bitmap, e.g. a vector or state list drawable, which are cheap to keep as they are.
+	 */
+	Bitmap decode(int resId, int size) {
+		BitmapFactory.Options options = new BitmapFactory.Options();
+		options.inJustDecodeBounds = true;
+		options.inScaled = false;
+		BitmapFactory.decodeResource(resources, resId, options);
+
+		int sourceSize = Math.max(options.outWidth, options.outHeight);
+		if (sourceSize <= 0) {
+			return null;
+		}
+
+		int sampleSize = 1;
+		while (sourceSize / (sampleSize * 2) >= size) {
+			sampleSize *= 2;
+		}
+
+		options.inJustDecodeBounds = false;
+		options.inSampleSize = sampleSize;
+		options.inScaled = true;
+		options.inDensity = sourceSize / sampleSize;
+		options.inTargetDensity = size;
+		options.inMutable = true;
+		options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+
+		Bitmap bitmap = null;
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+			Bitmap pooled = pool.acquire(scaled(options.outWidth, sampleSize, size, sourceSize),
+			                             scaled(options.outHeight, sampleSize, size, sourceSize));
+			options.inBitmap = pooled;
+			try {
+				bitmap = BitmapFactory.decodeResource(resources, resId, options);
+			} catch (IllegalArgumentException e) {
+				bitmap = null;
+			}
+			options.inBitmap = null;
+			if (bitmap == null) {
+				// the pooled buffer could not be reused for this image, or the decode failed
+				pool.release(pooled);
+			}
+		}
+		if (bitmap == null) {
+			bitmap = BitmapFactory.decodeResource(resources, resId, options);
+		}
+		if (bitmap != null) {
+			bitmap.setDensity(resources.getDisplayMetrics().densityDpi);
+		}
+		return bitmap;
+	}
+
+	/**
+	 * Renders a bitmap drawable that is larger than {@code size} into a pooled bitmap of that size.
+	 * Returns null for any other drawable, which should be used as it is.
+	 */
+	Bitmap render(Drawable drawable, int size) {
+		if (!(drawable instanceof BitmapDrawable)) {
+			return null;
+		}
+
+		int width = drawable.getIntrinsicWidth();
+		int height = drawable.getIntrinsicHeight();
+		int sourceSize = Math.max(width, height);
+		if (sourceSize <= size) {
+			return null;
+		}
+
+		int targetWidth = Math.max(1, width * size / sourceSize);
+		int targetHeight = Math.max(1, height * size / sourceSize);
+
+		Bitmap bitmap = pool.acquire(targetWidth, targetHeight);
+		if (bitmap == null) {
+			bitmap = Bitmap.createBitmap(targetWidth, targetHeight, Bitmap.Config.ARGB_8888);
+		} else {
+			bitmap.eraseColor(0);
+		}
+
+		// the adapter may share or cache the drawable, so it gets its own bounds back
+		drawable.copyBounds(savedBounds);
+		canvas.setBitmap(bitmap);
+		drawable.setBounds(0, 0, targetWidth, targetHeight);
+		drawable.draw(canvas);
+		canvas.setBitmap(null);
+		drawable.setBounds(savedBounds);
+
+		bitmap.setDensity(resources.getDisplayMetrics().densityDpi);
+		return bitmap;
+	}
+
+	private static int scaled(int sourceSide, int sampleSize, int size, int sourceSize) {
+		return Math.max(1, (int) ((sourceSide / sampleSize) * (float) size / (sourceSize / sampleSize) + 0.5f));
+	}
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2013 Andreas Stuetz <andreas.stuetz@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.astuetz;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Notification counts that any thread can write without locking. Writes mark their position in a
+ * dirty bitset, and the changed positions are published on the main thread at most once per frame,
+ * however many writes happened in between. Must be created on the main thread.
+ */
+class NotificationCountStore implements Runnable {
+
+	interface Publisher {
+		void publish(int position, int count);
+	}
+
+	/**
+	 * Runs the store with the next frame. Kept apart because {@link Choreographer} only exists from
+	 * API 16, so the store itself still loads on API 15.
+	 */
+	@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+	private static final class FrameScheduler implements Choreographer.FrameCallback {
+		private final Choreographer choreographer = Choreographer.getInstance();
+		private final Runnable target;
+
+		FrameScheduler(Runnable target) {
+			this.target = target;
+		}
+
+		void post() {
+			choreographer.postFrameCallback(this);
+		}
+
+		@Override
+		public void doFrame(long frameTimeNanos) {
+			target.run();
+		}
+	}
+
+	private static final class Slots {
+		final int size;
+		final AtomicIntegerArray counts;
+		final AtomicLongArray dirty;
+
+		Slots(int size) {
+			this.size = size;
+			counts = new AtomicIntegerArray(size);
+			dirty = new AtomicLongArray((size + 63) >>> 6);
+		}
+	}
+
+	private final Publisher publisher;
+	private final Handler handler = new Handler(Looper.getMainLooper());
+	private final FrameScheduler frameScheduler;
+	private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+	private volatile Slots slots = new Slots(0);
+
+	NotificationCountStore(Publisher publisher) {
+		this.publisher = publisher;
+		frameScheduler = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN ? new FrameScheduler(this) : null;
+	}
+
+	/**
+	 * Resizes the store to the current tab count and republishes every count that is not zero, since
+	 * the counter views were rebuilt. Main thread only.
+	 */
+	void resize(int size) {
+		Slots old = slots;
+		Slots resized = new Slots(size);
+		boolean changed = false;
+		for (int i = 0, n = Math.min(size, old.size); i < n; i++) {
+			int count = old.counts.get(i);
+			if (count != 0) {
+				resized.counts.set(i, count);
+				markDirty(resized, i);
+				changed = true;
+			}
+		}
+		slots = resized;
+		if (changed) {
+			schedule();
+		}
+	}
+
+	/**
+	 * Stores {@code count} for {@code position} and schedules it to be published. Safe to call from any
+	 * thread. Positions outside the current tab range are ignored.
+	 */
+	void set(int position, int count) {
+		Slots current;
+		do {
+			current = slots;
+			if (position < 0 || position >= current.size) {
+				return;
+			}
+			current.counts.set(position, count);
+			markDirty(current, position);
+			// retry if the store was resized meanwhile, the write may have missed the copy
+		} while (current != slots);
+
+		schedule();
+	}
+
+	/**
+	 * Stores {@code count} without publishing it, for counts that were already applied on the main thread.
+	 */
+	void record(int position, int count) {
+		Slots current = slots;
+		if (position >= 0 && position < current.size) {
+			current.counts.set(position, count);
+		}
+	}
+
+	private static void markDirty(Slots slots, int position) {
+		int word = position >>> 6;
+		long mask = 1L << (position & 63);
+		long bits;
+		do {
+			bits = slots.dirty.get(word);
+			if ((bits & mask) != 0) {
+				return;
+			}
+		} while (!slots.dirty.compareAndSet(word, bits, bits | mask));
+	}
+
+	private void schedule() {
+		if (!scheduled.compareAndSet(false, true)) {
+			return;
+		}
+		if (frameScheduler != null) {
+			frameScheduler.post();
+		} else {
+			handler.post(this);
+		}
+	}
+
+	@Override
+	public void run() {
+		// clear first so writes that race with this pass schedule the next one
+		scheduled.set(false);
+
+		Slots current = slots;
+		for (int word = 0, words = current.dirty.length(); word < words; word++) {
+			long bits = current.dirty.getAndSet(word, 0L);
+			while (bits != 0L) {
+				int position = (word << 6) + Long.numberOfTrailingZeros(bits);
+				publisher.publish(position, current.counts.get(position));
+				bits &= bits - 1;
+			}
+		}
+	}
+}
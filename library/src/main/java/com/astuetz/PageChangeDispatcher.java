@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2013 Andreas Stuetz <andreas.stuetz@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.astuetz;
+
+import android.support.v4.view.ViewPager.OnPageChangeListener;
+
+import java.util.Arrays;
+
+/**
+ * Fans page change events out to the listeners added to the strip. Every event type has its own
+ * array, replaced on each change, so dispatching is a plain indexed loop over a snapshot and scroll
+ * events never reach listeners that only care about selection.
+ */
+class PageChangeDispatcher implements OnPageChangeListener {
+
+	private static final OnPageChangeListener[] NONE = new OnPageChangeListener[0];
+
+	private OnPageChangeListener[] scrolledListeners = NONE;
+	private OnPageChangeListener[] selectedListeners = NONE;
+	private OnPageChangeListener[] stateListeners = NONE;
+
+	void add(OnPageChangeListener listener, int events) {
+		remove(listener);
+		if ((events & PagerSlidingTabStrip.PAGE_EVENT_SCROLLED) != 0) {
+			scrolledListeners = append(scrolledListeners, listener);
+		}
+		if ((events & PagerSlidingTabStrip.PAGE_EVENT_SELECTED) != 0) {
+			selectedListeners = append(selectedListeners, listener);
+		}
+		if ((events & PagerSlidingTabStrip.PAGE_EVENT_SCROLL_STATE_CHANGED) != 0) {
+			stateListeners = append(stateListeners, listener);
+		}
+	}
+
+	void remove(OnPageChangeListener listener) {
+		scrolledListeners = without(scrolledListeners, listener);
+		selectedListeners = without(selectedListeners, listener);
+		stateListeners = without(stateListeners, listener);
+	}
+
+	private static OnPageChangeListener[] append(OnPageChangeListener[] listeners, OnPageChangeListener listener) {
+		OnPageChangeListener[] result = Arrays.copyOf(listeners, listeners.length + 1);
+		result[listeners.length] = listener;
+		return result;
+	}
+
+	private static OnPageChangeListener[] without(OnPageChangeListener[] listeners, OnPageChangeListener listener) {
+		for (int i = 0; i < listeners.length; i++) {
+			if (listeners[i] == listener) {
+				if (listeners.length == 1) {
+					return NONE;
+				}
+				OnPageChangeListener[] result = new OnPageChangeListener[listeners.length - 1];
+				System.arraycopy(listeners, 0, result, 0, i);
+				System.arraycopy(listeners, i + 1, result, i, listeners.length - i - 1);
+				return result;
+			}
+		}
+		return listeners;
+	}
+
+	@Override
+	public void onPageScrolled(int position, float positionOffset, int positionOffsetPixels) {
+		OnPageChangeListener[] listeners = scrolledListeners;
+		for (int i = 0; i < listeners.length; i++) {
+			listeners[i].onPageScrolled(position, positionOffset, positionOffsetPixels);
+		}
+	}
+
+	@Override
+	public void onPageSelected(int position) {
+		OnPageChangeListener[] listeners = selectedListeners;
+		for (int i = 0; i < listeners.length; i++) {
+			listeners[i].onPageSelected(position);
+		}
+	}
+
+	@Override
+	public void onPageScrollStateChanged(int state) {
+		OnPageChangeListener[] listeners = stateListeners;
+		for (int i = 0; i < listeners.length; i++) {
+			listeners[i].onPageScrollStateChanged(state);
+		}
+	}
+}
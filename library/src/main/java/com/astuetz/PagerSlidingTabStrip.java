@@ -16,33 +16,54 @@
 
 package com.astuetz;
 
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
 import android.animation.ArgbEvaluator;
 import android.animation.ValueAnimator;
 import android.annotation.SuppressLint;
 import android.content.Context;
-import android.content.res.TypedArray;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Paint.Style;
 import android.graphics.Point;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffColorFilter;
+import android.graphics.Rect;
 import android.graphics.Typeface;
 import android.graphics.drawable.Drawable;
+import android.os.AsyncTask;
 import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
 import android.os.Parcel;
 import android.os.Parcelable;
+import android.support.v4.view.PagerAdapter;
+import android.support.v4.view.ViewCompat;
 import android.support.v4.view.ViewPager;
 import android.support.v4.view.ViewPager.OnPageChangeListener;
 import android.util.AttributeSet;
-import android.util.DisplayMetrics;
+import android.util.SparseIntArray;
 import android.util.TypedValue;
 import android.view.Display;
+import android.view.GestureDetector;
 import android.view.Gravity;
+import android.view.HapticFeedbackConstants;
+import android.view.KeyEvent;
 import android.view.LayoutInflater;
+import android.view.MotionEvent;
+import android.view.SoundEffectConstants;
 import android.view.View;
+import android.view.ViewConfiguration;
 import android.view.ViewGroup;
+import android.view.ViewTreeObserver.OnGlobalFocusChangeListener;
 import android.view.ViewTreeObserver.OnGlobalLayoutListener;
+import android.view.ViewTreeObserver.OnPreDrawListener;
 import android.view.WindowManager;
+import android.view.accessibility.AccessibilityManager;
+import android.widget.FrameLayout;
 import android.widget.HorizontalScrollView;
 import android.widget.ImageView;
 import android.widget.LinearLayout;
@@ -50,9 +71,8 @@ import android.widget.TextView;
 
 import com.astuetz.pagerslidingtabstrip.R;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.Executor;
 
 public class PagerSlidingTabStrip extends HorizontalScrollView {
 	private static final String TAG = "PagerSlidingTabStrip";
@@ -68,20 +88,92 @@ public class PagerSlidingTabStrip extends HorizontalScrollView {
 		boolean hasNotification(int position);
 	}
 
-	// @formatter:off
-	private static final int[] ATTRS = new int[]{
-			android.R.attr.textSize,
-			android.R.attr.textColor
-	};
-	// @formatter:on
+	/**
+	 * For adapters whose titles are expensive to compute. Tabs are built with the placeholder titles,
+	 * then the real titles are loaded on the executor set with {@link #setTitleExecutor(Executor)} and
+	 * applied to all tabs at once.
+	 */
+	public interface AsyncTitleProvider {
+		/**
+		 * Called on the main thread. A title of similar length keeps the tab from changing its width
+		 * when the real title arrives.
+		 */
+		CharSequence getPlaceholderTitle(int position);
+
+		/**
+		 * Called on the title executor.
+		 */
+		CharSequence loadPageTitle(int position);
+	}
+
+	public interface OnTabReselectedListener {
+		void onTabReselected(int position);
+	}
+
+	public interface OnTabLongClickListener {
+		boolean onTabLongClick(int position);
+	}
+
+	public interface OnVisibleTabsChangedListener {
+		void onVisibleTabsChanged(int first, int last, float velocity);
+	}
 
-	private LinearLayout.LayoutParams defaultTabLayoutParams;
-	private LinearLayout.LayoutParams expandedTabLayoutParams;
+	public interface Tracer {
+		boolean isEnabled();
+
+		void beginSection(String name, int tabCount);
+
+		void endSection();
+	}
+
+	public static final int QUALITY_FULL = 0;
+	public static final int QUALITY_NO_ANTIALIAS = 1;
+	public static final int QUALITY_NO_DIVIDERS = 2;
+	public static final int QUALITY_SNAP_TINT = 3;
+
+	public static final int PAGE_EVENT_SCROLLED = 1;
+	public static final int PAGE_EVENT_SELECTED = 1 << 1;
+	public static final int PAGE_EVENT_SCROLL_STATE_CHANGED = 1 << 2;
+	public static final int PAGE_EVENTS_ALL = PAGE_EVENT_SCROLLED | PAGE_EVENT_SELECTED | PAGE_EVENT_SCROLL_STATE_CHANGED;
+
+	public static final String TRACE_NOTIFY_DATA_SET_CHANGED = "PSTS.notifyDataSetChanged";
+	public static final String TRACE_UPDATE_TAB_STYLES = "PSTS.updateTabStyles";
+	public static final String TRACE_DRAW = "PSTS.onDraw";
+	public static final String TRACE_SCROLL_TO_CHILD = "PSTS.scrollToChild";
+	public static final String TRACE_PAGE_SCROLLED = "PSTS.onPageScrolled";
+	public static final String TRACE_UPDATE_NOTIFICATION_COUNTER = "PSTS.updateNotificationCounter";
+
+	private LayoutParams defaultTabLayoutParams;
 
 	private final PageListener pageListener = new PageListener();
+	private boolean listeningToPager = false;
 	public OnPageChangeListener delegatePageListener;
+	private final PageChangeDispatcher pageChangeDispatcher = new PageChangeDispatcher();
+
+	private final TabGeometry tabGeometry = new TabGeometry();
+	private GestureDetector tabGestureDetector;
+	private OnTabReselectedListener tabReselectedListener;
+	private OnTabLongClickListener tabLongClickListener;
+	private int pressedPosition = -1;
+	private boolean touchStoppedFling = false;
+	private final VisibleTabsTracker visibleTabsTracker = new VisibleTabsTracker(this, tabGeometry);
+	private TabWarmUp warmUp;
+	private TabAccessibilityHelper accessibilityHelper;
+	private Tracer tracer;
 
-	private LinearLayout tabsContainer;
+	private final NotificationCountStore notificationCounts;
+
+	private FrameQualityMonitor qualityMonitor;
+	private int qualityLevel = QUALITY_FULL;
+
+	private boolean visibleToUser = true;
+	private boolean catchUpPending = false;
+	private final Rect visibleRect = new Rect();
+
+	private boolean releaseTabsWhenDetached = false;
+	private boolean tabsReleased = false;
+
+	private TabsContainer tabsContainer;
 	private ViewPager pager;
 
 	private int tabCount;
@@ -92,32 +184,35 @@ public class PagerSlidingTabStrip extends HorizontalScrollView {
 	private Paint rectPaint;
 	private Paint dividerPaint;
 
-	private int indicatorColor = 0xFF666666;
-	private int underlineColor = 0x1A000000;
-	private int dividerColor = 0x1A000000;
+	private int indicatorColor;
+	private int underlineColor;
+	private int dividerColor;
 
-	private boolean shouldExpand = false;
-	private boolean textAllCaps = true;
+	private boolean shouldExpand;
+	private boolean textAllCaps;
 
-	private int scrollOffset = 52;
-	private int indicatorHeight = 8;
-	private int underlineHeight = 2;
-	private int dividerPadding = 12;
-	private int tabPadding = 24;
-	private int dividerWidth = 1;
+	private int scrollOffset;
+	private int indicatorHeight;
+	private int underlineHeight;
+	private int dividerPadding;
+	private int tabPadding;
+	private int dividerWidth;
 	private boolean fitWindow = false;
 
-	private int tabTextSize = 12;
-	private int tabTextColor = 0xFF666666;
+	private int tabTextSize;
+	private int tabTextColor;
 	private Typeface tabTypeface = null;
 	private int tabTypefaceStyle = Typeface.BOLD;
 
 	private int lastScrollX = 0;
 
-	private int tabBackgroundResId = R.drawable.background_tab;
+	private int tabBackgroundResId;
+	private boolean sharedTabBackground = false;
+	private Drawable tabBackground;
+	private int tabBackgroundPosition = -1;
 
 	private Locale locale;
-	private int iconSize = dpToPx(24);
+	private int iconSize;
 
 	private int iconColorFilter = 0;
 
@@ -129,12 +224,50 @@ public class PagerSlidingTabStrip extends HorizontalScrollView {
 	ValueAnimator tintAnimator, unTintAnimator;
 	long animationPlayTime = 5000L;
 
+	private boolean crossfadeTint = false;
+	private int crossfadeFirst = -1;
+	private int crossfadeSecond = -1;
+
 	ImageView currentIcon, nextIcon;
-	List<ImageView> icons = new ArrayList<>();
 	TextView currentText, nextText;
-	List<TextView> textViews = new ArrayList<>();
 
-	private List<TextView> counters = new ArrayList<>();
+	private final TabRegistry tabRegistry = new TabRegistry();
+
+	private boolean downsampleIcons = false;
+	private IconBitmapPool iconBitmapPool;
+	private IconLoader iconLoader;
+
+	private Executor titleExecutor;
+	private int titleGeneration = 0;
+	private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+	private boolean tileCacheEnabled = false;
+	private TileCache tileCache;
+	private Canvas tileCanvas;
+	private final int[] liveTabs = new int[TileCache.MAX_EXCLUDED];
+	private int liveTabCount = 0;
+	private int drawnFirstTab = 0;
+	private int drawnLastTab = -1;
+	private int lastTileScrollX = 0;
+	private boolean tileRenderScheduled = false;
+	private int lastPressedPosition = -1;
+	private int pageScrollState = ViewPager.SCROLL_STATE_IDLE;
+
+	private int farJumpThreshold = 0;
+	private ValueAnimator farJumpAnimator;
+	private int farJumpFrom;
+	private int farJumpTo;
+	private float farJumpFraction;
+
+	private boolean deferUpdates = false;
+	private boolean bypassDeferral = false;
+	private boolean pendingRebuild = false;
+	private boolean pendingStyles = false;
+	private final SparseIntArray pendingCounters = new SparseIntArray();
+
+	private boolean iconAtlasEnabled = false;
+	private IconAtlas iconAtlas;
+	private Paint atlasPaint, atlasActivePaint;
 
 	public PagerSlidingTabStrip(Context context) {
 		this(context, null);
@@ -150,48 +283,30 @@ public class PagerSlidingTabStrip extends HorizontalScrollView {
 		setFillViewport(true);
 		setWillNotDraw(false);
 
-		tabsContainer = new LinearLayout(context);
-		tabsContainer.setOrientation(LinearLayout.HORIZONTAL);
+		tabsContainer = new TabsContainer(context);
 		tabsContainer.setLayoutParams(new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT));
 		addView(tabsContainer);
 
-		DisplayMetrics dm = getResources().getDisplayMetrics();
-
-		scrollOffset = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, scrollOffset, dm);
-		indicatorHeight = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, indicatorHeight, dm);
-		underlineHeight = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, underlineHeight, dm);
-		dividerPadding = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, dividerPadding, dm);
-		tabPadding = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, tabPadding, dm);
-		dividerWidth = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, dividerWidth, dm);
-		tabTextSize = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, tabTextSize, dm);
-
-		// get system attrs (android:textSize and android:textColor)
-
-		TypedArray a = context.obtainStyledAttributes(attrs, ATTRS);
-
-		tabTextSize = a.getDimensionPixelSize(0, tabTextSize);
-		//noinspection ResourceType
-		tabTextColor = a.getColor(1, tabTextColor);
-
-		a.recycle();
-
-		// get custom attrs
-
-		a = context.obtainStyledAttributes(attrs, R.styleable.PagerSlidingTabStrip);
-
-		indicatorColor = a.getColor(R.styleable.PagerSlidingTabStrip_pstsIndicatorColor, indicatorColor);
-		underlineColor = a.getColor(R.styleable.PagerSlidingTabStrip_pstsUnderlineColor, underlineColor);
-		dividerColor = a.getColor(R.styleable.PagerSlidingTabStrip_pstsDividerColor, dividerColor);
-		indicatorHeight = a.getDimensionPixelSize(R.styleable.PagerSlidingTabStrip_pstsIndicatorHeight, indicatorHeight);
-		underlineHeight = a.getDimensionPixelSize(R.styleable.PagerSlidingTabStrip_pstsUnderlineHeight, underlineHeight);
-		dividerPadding = a.getDimensionPixelSize(R.styleable.PagerSlidingTabStrip_pstsDividerPadding, dividerPadding);
-		tabPadding = a.getDimensionPixelSize(R.styleable.PagerSlidingTabStrip_pstsTabPaddingLeftRight, tabPadding);
-		tabBackgroundResId = a.getResourceId(R.styleable.PagerSlidingTabStrip_pstsTabBackground, tabBackgroundResId);
-		shouldExpand = a.getBoolean(R.styleable.PagerSlidingTabStrip_pstsShouldExpand, shouldExpand);
-		scrollOffset = a.getDimensionPixelSize(R.styleable.PagerSlidingTabStrip_pstsScrollOffset, scrollOffset);
-		textAllCaps = a.getBoolean(R.styleable.PagerSlidingTabStrip_pstsTextAllCaps, textAllCaps);
-
-		a.recycle();
+		// resolved attributes are shared by all strips with the same theme, density and attributes
+		TabStripStyle style = TabStripStyle.obtain(context, attrs);
+
+		indicatorColor = style.indicatorColor;
+		underlineColor = style.underlineColor;
+		dividerColor = style.dividerColor;
+		indicatorHeight = style.indicatorHeight;
+		underlineHeight = style.underlineHeight;
+		dividerPadding = style.dividerPadding;
+		tabPadding = style.tabPadding;
+		dividerWidth = style.dividerWidth;
+		tabBackgroundResId = style.tabBackgroundResId;
+		shouldExpand = style.shouldExpand;
+		scrollOffset = style.scrollOffset;
+		textAllCaps = style.textAllCaps;
+		tabTextSize = style.tabTextSize;
+		tabTextColor = style.tabTextColor;
+		iconSize = style.iconSize;
+
+		tabsContainer.setExpand(shouldExpand);
 
 		rectPaint = new Paint();
 		rectPaint.setAntiAlias(true);
@@ -201,8 +316,17 @@ public class PagerSlidingTabStrip extends HorizontalScrollView {
 		dividerPaint.setAntiAlias(true);
 		dividerPaint.setStrokeWidth(dividerWidth);
 
-		defaultTabLayoutParams = new LinearLayout.LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.MATCH_PARENT);
-		expandedTabLayoutParams = new LinearLayout.LayoutParams(0, LayoutParams.MATCH_PARENT, 1.0f);
+		notificationCounts = new NotificationCountStore(new NotificationCountStore.Publisher() {
+			@Override
+			public void publish(int position, int count) {
+				publishNotificationCount(position, count);
+			}
+		});
+
+		tabGestureDetector = new GestureDetector(context, new TabGestureListener());
+		tabGestureDetector.setIsLongpressEnabled(false);
+
+		defaultTabLayoutParams = new LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.MATCH_PARENT);
 
 		if (locale == null) {
 			locale = getResources().getConfiguration().locale;
@@ -246,362 +370,2119 @@ public class PagerSlidingTabStrip extends HorizontalScrollView {
 		});
 		tintAnimator.setDuration(animationPlayTime);
 		unTintAnimator.setDuration(animationPlayTime);
+
+		if (iconAtlas != null) {
+			updateAtlasPaints();
+		}
+		invalidateTiles();
+
+		updateLayerTints();
+	}
+
+	/**
+	 * Gives every tab built after this call two pre-tinted renderings of its icon and title, one in the
+	 * active and one in the inactive color of {@link #setColorFilters(int, int, long)}. Swiping then only
+	 * changes the alpha of the two layers instead of applying a new color on every frame.
+	 */
+	public void setCrossfadeTint(boolean crossfadeTint) {
+		this.crossfadeTint = crossfadeTint;
+	}
+
+	public boolean isCrossfadeTint() {
+		return crossfadeTint;
+	}
+
+	private boolean hasTintLayers() {
+		return crossfadeTint && tintAnimator != null;
 	}
 
 
 	public void setViewPager(ViewPager pager) {
+		if (this.pager != null) {
+			this.pager.removeOnPageChangeListener(pageListener);
+			listeningToPager = false;
+		}
+
 		this.pager = pager;
+		pageScrollState = ViewPager.SCROLL_STATE_IDLE;
 
 		if (pager.getAdapter() == null) {
 			throw new IllegalStateException("ViewPager does not have adapter instance.");
 		}
 
+		pager.removeOnPageChangeListener(pageListener);
 		pager.addOnPageChangeListener(pageListener);
+		listeningToPager = true;
+		tabsReleased = false;
+
+		// reuse the tabs prepared by warmUp() if they were built for this adapter
+		TabWarmUp prepared = warmUp;
+		if (prepared != null && prepared.adapter == pager.getAdapter()) {
+			Looper.myQueue().removeIdleHandler(prepared);
+			warmUp = null;
+			if (prepared.finish()) {
+				scrollToCurrentTabOnLayout();
+				return;
+			}
+		}
+
 		getScreenDimensions();
 		notifyDataSetChanged();
 	}
 
-	public void setOnPageChangeListener(OnPageChangeListener listener) {
-		this.delegatePageListener = listener;
+	/**
+	 * Lowers the drawing quality step by step while the pager scrolls and frames are being dropped:
+	 * first antialiasing is turned off, then the dividers are skipped and finally the tint is no longer
+	 * animated but snapped once the page settles. Full quality is restored when the pager is idle.
+	 * Needs API 16, does nothing on older versions.
+	 */
+	public void setAdaptiveQuality(boolean adaptiveQuality) {
+		if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+			// frame timing comes from the Choreographer
+			return;
+		}
+
+		if (adaptiveQuality && qualityMonitor == null) {
+			WindowManager wm = (WindowManager) getContext().getSystemService(Context.WINDOW_SERVICE);
+			float refreshRate = wm.getDefaultDisplay().getRefreshRate();
+			qualityMonitor = new FrameQualityMonitor(refreshRate, new FrameQualityMonitor.Listener() {
+				@Override
+				public void onFramesDropped() {
+					setQualityLevel(Math.min(qualityLevel + 1, QUALITY_SNAP_TINT));
+				}
+			});
+		} else if (!adaptiveQuality && qualityMonitor != null) {
+			qualityMonitor.stop();
+			qualityMonitor = null;
+			restoreQuality();
+		}
+	}
+
+	public boolean isAdaptiveQuality() {
+		return qualityMonitor != null;
+	}
+
+	public int getQualityLevel() {
+		return qualityLevel;
+	}
+
+	private void setQualityLevel(int level) {
+		if (level == qualityLevel) {
+			return;
+		}
+		qualityLevel = level;
+
+		boolean antiAlias = level < QUALITY_NO_ANTIALIAS;
+		rectPaint.setAntiAlias(antiAlias);
+		dividerPaint.setAntiAlias(antiAlias);
+		invalidateTiles();
+		invalidate();
+	}
+
+	private void restoreQuality() {
+		if (qualityLevel >= QUALITY_SNAP_TINT && pager != null) {
+			snapTint(pager.getCurrentItem());
+		}
+		setQualityLevel(QUALITY_FULL);
+	}
+
+	/**
+	 * Applies the final tint of a settled page at once, for when the tint was not animated while scrolling.
+	 */
+	private void snapTint(int position) {
+		if (hasTintLayers()) {
+			applyCrossfade(position, 0f);
+			return;
+		}
+		if (tintAnimator == null) {
+			return;
+		}
+
+		if (currentIcon != null) {
+			currentIcon.setColorFilter(colorFilterInActive);
+		}
+		if (nextIcon != null) {
+			nextIcon.setColorFilter(colorFilterInActive);
+		}
+		if (currentText != null) {
+			currentText.setTextColor(colorFilterInActive);
+		}
+		if (nextText != null) {
+			nextText.setTextColor(colorFilterInActive);
+		}
+
+		ImageView icon = tabRegistry.icon(position);
+		if (icon != null) {
+			icon.setColorFilter(colorFilterActive);
+		}
+		TextView title = tabRegistry.title(position);
+		if (title != null) {
+			title.setTextColor(colorFilterActive);
+		}
+	}
+
+	/**
+	 * Unregisters the strip from its ViewPager and drops all tabs. Call {@link #setViewPager(ViewPager)}
+	 * to bind it again.
+	 */
+	public void detachFromViewPager() {
+		if (pager == null) {
+			return;
+		}
+
+		pager.removeOnPageChangeListener(pageListener);
+		listeningToPager = false;
+		pager = null;
+
+		cancelWarmUp();
+		releaseTintState();
+		releaseTabs();
+		tabsReleased = false;
+		if (iconBitmapPool != null) {
+			iconBitmapPool.clear();
+		}
+	}
+
+	/**
+	 * If set, the strip drops its tab views while it is detached from the window and rebuilds them when
+	 * it is attached again. Icon bitmap buffers are kept in the pool for the rebuild.
+	 */
+	public void setReleaseTabsWhenDetached(boolean releaseTabsWhenDetached) {
+		this.releaseTabsWhenDetached = releaseTabsWhenDetached;
+	}
+
+	public boolean isReleaseTabsWhenDetached() {
+		return releaseTabsWhenDetached;
+	}
+
+	private void releaseTabs() {
+		setPressedTab(-1);
+		tabsContainer.removeAllViews();
+		releaseIconBitmaps();
+		releaseIconAtlas();
+		tabCount = 0;
+		titleGeneration++;
+		tabRegistry.reset(0);
+		tabGeometry.clear();
+		crossfadeFirst = crossfadeSecond = -1;
+		tabBackgroundPosition = -1;
+		lastPressedPosition = -1;
+		releaseTileCache();
+	}
+
+	private void releaseTintState() {
+		if (tintAnimator != null) {
+			tintAnimator.cancel();
+			unTintAnimator.cancel();
+		}
+		currentIcon = nextIcon = null;
+		currentText = nextText = null;
+	}
+
+	/**
+	 * Builds the tabs for {@code adapter} while the main thread is idle, one tab per idle pass, so a
+	 * following {@link #setViewPager(ViewPager)} with the same adapter can attach them right away.
+	 * The tabs are built into the strip itself, so it must not be bound to a pager yet. Until all tabs
+	 * are built the strip draws, reports and accepts nothing, as if it had no tabs.
+	 */
+	public void warmUp(PagerAdapter adapter) {
+		if (pager != null) {
+			throw new IllegalStateException("warmUp() must be called before setViewPager().");
+		}
+
+		cancelWarmUp();
+		warmUp = new TabWarmUp(adapter);
+		Looper.myQueue().addIdleHandler(warmUp);
+	}
+
+	private void cancelWarmUp() {
+		if (warmUp != null) {
+			Looper.myQueue().removeIdleHandler(warmUp);
+			boolean partial = !warmUp.styled;
+			warmUp = null;
+			if (partial) {
+				// a half built row must never be drawn
+				releaseTabs();
+				tabsContainer.setVisibility(VISIBLE);
+			}
+		}
+	}
+
+	private boolean isWarmingUp() {
+		return warmUp != null && !warmUp.styled;
+	}
+
+	public void setOnPageChangeListener(OnPageChangeListener listener) {
+		this.delegatePageListener = listener;
+	}
+
+	/**
+	 * Adds a listener for all page change events. Unlike {@link #setOnPageChangeListener}, any number of
+	 * listeners can be added.
+	 */
+	public void addOnPageChangeListener(OnPageChangeListener listener) {
+		addOnPageChangeListener(listener, PAGE_EVENTS_ALL);
+	}
+
+	/**
+	 * Adds a listener for the page change events in {@code events}, a combination of the
+	 * {@code PAGE_EVENT_} flags. A listener that only needs selections is then skipped on every scroll
+	 * frame. Adding a listener again replaces its events.
+	 */
+	public void addOnPageChangeListener(OnPageChangeListener listener, int events) {
+		pageChangeDispatcher.add(listener, events);
+	}
+
+	public void removeOnPageChangeListener(OnPageChangeListener listener) {
+		pageChangeDispatcher.remove(listener);
+	}
+
+	/**
+	 * Returns the listener the strip registers on its pager, for replaying recorded page changes.
+	 */
+	OnPageChangeListener getPageListener() {
+		return pageListener;
+	}
+
+	/**
+	 * Returns true if the page listener is registered on the pager right now. A bound strip stops
+	 * listening while it is detached from its window.
+	 */
+	boolean isListeningToPager() {
+		return listeningToPager;
+	}
+
+	ViewPager getViewPager() {
+		return pager;
+	}
+
+	public void setOnTabReselectedListener(OnTabReselectedListener listener) {
+		this.tabReselectedListener = listener;
+	}
+
+	public void setOnTabLongClickListener(OnTabLongClickListener listener) {
+		this.tabLongClickListener = listener;
+		tabGestureDetector.setIsLongpressEnabled(listener != null);
+	}
+
+	public void setOnVisibleTabsChangedListener(OnVisibleTabsChangedListener listener) {
+		visibleTabsTracker.setListener(listener);
+	}
+
+	public void setVisibleTabsLookAhead(int tabs) {
+		visibleTabsTracker.setLookAhead(tabs);
+	}
+
+	public int getVisibleTabsLookAhead() {
+		return visibleTabsTracker.getLookAhead();
+	}
+
+	public void notifyDataSetChanged() {
+
+		// a changed page count is applied at once, the page listener must not see positions without a tab
+		if (isDeferringUpdates() && pager.getAdapter().getCount() == tabCount) {
+			pendingRebuild = true;
+			return;
+		}
+		pendingRebuild = false;
+
+		cancelWarmUp();
+
+		boolean traced = beginTrace(TRACE_NOTIFY_DATA_SET_CHANGED);
+		try {
+			PagerAdapter adapter = pager.getAdapter();
+			beginTabs(adapter);
+
+			for (int i = 0; i < tabCount; i++) {
+				buildTab(adapter, i);
+			}
+
+			updateTabStyles();
+			loadTitles(adapter);
+			invalidateAccessibility();
+
+			scrollToCurrentTabOnLayout();
+		} finally {
+			endTrace(traced);
+		}
+	}
+
+	/**
+	 * Wraps the strip's rebuild, styling, drawing and scroll work in named trace sections. Pass null,
+	 * the default, to disable tracing.
+	 */
+	public void setTracer(Tracer tracer) {
+		this.tracer = tracer;
+	}
+
+	private boolean beginTrace(String section) {
+		if (tracer == null || !tracer.isEnabled()) {
+			return false;
+		}
+		tracer.beginSection(section, tabCount);
+		return true;
+	}
+
+	private void endTrace(boolean traced) {
+		if (traced) {
+			tracer.endSection();
+		}
+	}
+
+	private void beginTabs(PagerAdapter adapter) {
+		cancelFarJump();
+		tabsContainer.removeAllViews();
+		releaseIconBitmaps();
+		tabCount = adapter.getCount();
+		titleGeneration++;
+		tabsContainer.setFitWidth(fitWindow ? screenWidth : 0);
+		tabRegistry.reset(tabCount);
+		notificationCounts.resize(tabCount);
+
+		if (iconAtlasEnabled && adapter instanceof IconTabProvider && IconAtlas.fits(tabCount, iconSize)) {
+			iconAtlas = new IconAtlas(tabCount, iconSize, iconAtlas);
+			updateAtlasPaints();
+		} else {
+			releaseIconAtlas();
+		}
+
+		currentIcon = nextIcon = null;
+		currentText = nextText = null;
+		crossfadeFirst = crossfadeSecond = -1;
+		tabBackgroundPosition = -1;
+		lastPressedPosition = -1;
+		invalidateTiles();
+	}
+
+	private void buildTab(PagerAdapter adapter, int i) {
+		if (adapter instanceof IconTabProvider) {
+			int resId = ((IconTabProvider) adapter).getPageIconResId(i);
+			CharSequence title = pageTitle(adapter, i);
+			hasIcon = true;
+			if (resId != 0) {
+				addIconTab(i, resId);
+			} else {
+				if (title == null) {
+					addIconTab(i, ((IconTabProvider) adapter).getPageIconDrawable(i));
+				} else {
+					addIconTabWithText(i, ((IconTabProvider) adapter).getPageIconDrawable(i), title.toString());
+				}
+			}
+		} else if (adapter instanceof NotificationTabProvider && ((NotificationTabProvider) adapter).hasNotification(i)) {
+			addTextTabWithNotification(i, pageTitle(adapter, i).toString());
+		} else {
+			addTextTab(i, pageTitle(adapter, i).toString());
+		}
+	}
+
+	private CharSequence pageTitle(PagerAdapter adapter, int position) {
+		if (adapter instanceof AsyncTitleProvider) {
+			return ((AsyncTitleProvider) adapter).getPlaceholderTitle(position);
+		}
+		return adapter.getPageTitle(position);
+	}
+
+	/**
+	 * Sets the executor that loads the titles of an {@link AsyncTitleProvider}. Defaults to the thread
+	 * pool of {@link AsyncTask}.
+	 */
+	public void setTitleExecutor(Executor titleExecutor) {
+		this.titleExecutor = titleExecutor;
+	}
+
+	private void loadTitles(PagerAdapter adapter) {
+		if (!(adapter instanceof AsyncTitleProvider)) {
+			return;
+		}
+
+		final AsyncTitleProvider provider = (AsyncTitleProvider) adapter;
+		final int generation = titleGeneration;
+		final int count = tabCount;
+		Executor executor = titleExecutor != null ? titleExecutor : AsyncTask.THREAD_POOL_EXECUTOR;
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				final CharSequence[] titles = new CharSequence[count];
+				for (int i = 0; i < count; i++) {
+					titles[i] = provider.loadPageTitle(i);
+				}
+
+				// one message for all titles, so they show up in the same frame. Not View.post(), which
+				// drops the message before API 24 if the strip is not attached, e.g. during a warm-up
+				mainHandler.post(new Runnable() {
+					@Override
+					public void run() {
+						applyTitles(generation, titles);
+					}
+				});
+			}
+		});
+	}
+
+	private void applyTitles(int generation, CharSequence[] titles) {
+		if (generation != titleGeneration) {
+			// the tabs were rebuilt or released while the titles were loading
+			return;
+		}
+
+		for (int i = 0; i < titles.length; i++) {
+			TextView title = tabRegistry.title(i);
+			if (title == null || titles[i] == null) {
+				continue;
+			}
+
+			CharSequence text = titles[i];
+			if (textAllCaps && Build.VERSION.SDK_INT < Build.VERSION_CODES.ICE_CREAM_SANDWICH) {
+				text = text.toString().toUpperCase(locale);
+			}
+			title.setText(text);
+
+			TextView activeTitle = tabRegistry.activeTitle(i);
+			if (activeTitle != null) {
+				activeTitle.setText(text);
+			}
+			invalidateTabTile(i);
+		}
+
+		invalidateAccessibility();
+	}
+
+	private void scrollToCurrentTabOnLayout() {
+		getViewTreeObserver().addOnGlobalLayoutListener(new OnGlobalLayoutListener() {
+
+			@SuppressWarnings("deprecation")
+			@SuppressLint("NewApi")
+			@Override
+			public void onGlobalLayout() {
+
+				if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+					getViewTreeObserver().removeGlobalOnLayoutListener(this);
+				} else {
+					getViewTreeObserver().removeOnGlobalLayoutListener(this);
+				}
+
+				if (pager == null) {
+					return;
+				}
+
+				currentPosition = pager.getCurrentItem();
+				scrollToChild(currentPosition, 0);
+				applyCrossfade(currentPosition, 0f);
+			}
+		});
+	}
+
+	public boolean isFitWindow() {
+		return fitWindow;
+	}
+
+	public void setFitWindow(boolean fitWindow) {
+		this.fitWindow = fitWindow;
+	}
+
+	private void addTextTab(final int position, String title) {
+
+		TextView tab = new TextView(getContext());
+		tab.setText(title);
+		tab.setGravity(Gravity.CENTER);
+		tab.setSingleLine();
+
+		addTab(position, tab, null, tab, null);
+		if (iconColorFilter != 0) {
+			tab.setTextColor(iconColorFilter);
+		}
+	}
+
+	private void addTextTabWithNotification(final int position, String titleStr) {
+
+		View tab = LayoutInflater.from(getContext()).inflate(R.layout.notification_text, null, false);
+
+		TextView title = (TextView) tab.findViewById(R.id.title);
+		TextView counter = (TextView) tab.findViewById(R.id.notification);
+
+		title.setText(titleStr);
+		addTab(position, tab, null, title, counter);
+		if (iconColorFilter != 0) {
+			title.setTextColor(iconColorFilter);
+		}
+	}
+
+	public void updateNotificationCounter(int index, int value) {
+		notificationCounts.record(index, value);
+		publishNotificationCount(index, value);
+	}
+
+	/**
+	 * Thread-safe variant of {@link #updateNotificationCounter(int, int)}. Counts written from any thread
+	 * are coalesced and only the positions that changed are applied, once per frame on the main thread.
+	 * Counts are kept across rebuilds of the tabs.
+	 */
+	public void setNotificationCount(int index, int value) {
+		notificationCounts.set(index, value);
+	}
+
+	private void publishNotificationCount(int index, int value) {
+		if (isDeferringUpdates()) {
+			pendingCounters.put(index, value);
+		} else {
+			showNotificationCount(index, value);
+		}
+	}
+
+	/**
+	 * Holds back rebuilds, restyling and notification counts while the pager is dragged or settling,
+	 * and applies them together once it is idle. Only the last count per tab is kept, and any number
+	 * of rebuilds or style changes result in one. Rebuilds that change the number of tabs are never
+	 * held back, since the pager already reports positions of the new adapter.
+	 */
+	public void setDeferUpdatesWhileScrolling(boolean deferUpdates) {
+		this.deferUpdates = deferUpdates;
+		if (!deferUpdates) {
+			applyDeferredUpdates();
+		}
+	}
+
+	public boolean isDeferUpdatesWhileScrolling() {
+		return deferUpdates;
+	}
+
+	/**
+	 * Runs {@code update} with deferral turned off, for cosmetic changes that should show up while the
+	 * pager is still scrolling.
+	 */
+	public void applyImmediately(Runnable update) {
+		boolean bypass = bypassDeferral;
+		bypassDeferral = true;
+		try {
+			update.run();
+		} finally {
+			bypassDeferral = bypass;
+		}
+	}
+
+	private boolean isDeferringUpdates() {
+		return deferUpdates && !bypassDeferral && pageScrollState != ViewPager.SCROLL_STATE_IDLE;
+	}
+
+	private void requestTabStyles() {
+		if (isDeferringUpdates()) {
+			pendingStyles = true;
+		} else {
+			updateTabStyles();
+		}
+	}
+
+	private void applyDeferredUpdates() {
+		boolean rebuild = pendingRebuild && pager != null;
+		boolean styles = pendingStyles;
+		pendingRebuild = false;
+		pendingStyles = false;
+
+		if (rebuild) {
+			notifyDataSetChanged();
+		} else if (styles) {
+			updateTabStyles();
+		}
+
+		for (int i = 0; i < pendingCounters.size(); i++) {
+			showNotificationCount(pendingCounters.keyAt(i), pendingCounters.valueAt(i));
+		}
+		pendingCounters.clear();
+	}
+
+	private void showNotificationCount(int index, int value) {
+		TextView counter = tabRegistry.counter(index);
+		if (counter == null) {
+			return;
+		}
+
+		boolean traced = beginTrace(TRACE_UPDATE_NOTIFICATION_COUNTER);
+		try {
+			if (value == 0) {
+				counter.setVisibility(GONE);
+			} else {
+				counter.setVisibility(VISIBLE);
+				counter.setText(String.valueOf(value));
+			}
+			invalidateTabTile(index);
+		} finally {
+			endTrace(traced);
+		}
+	}
+
+	public void setLinePaddingFromBottom(int linePaddingFromBottom) {
+		this.linePaddingFromBottom = linePaddingFromBottom;
+	}
+
+	private void addIconTab(final int position, int resId) {
+		LinearLayout layout = new LinearLayout(getContext());
+		layout.setGravity(Gravity.CENTER);
+		ImageView tab = new ImageView(getContext());
+		setIconImage(position, tab, resId);
+		tab.setLayoutParams(new LinearLayout.LayoutParams(iconSize, iconSize));
+		if (iconColorFilter != 0) {
+			tab.setColorFilter(iconColorFilter);
+		}
+		layout.addView(tab);
+		addTab(position, layout, tab, null, null);
+	}
+
+	private void addIconTab(final int position, Drawable drawable) {
+		LinearLayout layout = new LinearLayout(getContext());
+		layout.setGravity(Gravity.CENTER);
+		ImageView tab = new ImageView(getContext());
+		setIconImage(position, tab, drawable);
+		if (iconColorFilter != 0) {
+			tab.setColorFilter(iconColorFilter);
+		}
+		tab.setLayoutParams(new LinearLayout.LayoutParams(iconSize, iconSize));
+		layout.addView(tab);
+		addTab(position, layout, tab, null, null);
+	}
+
+	private void addIconTabWithText(final int position, Drawable drawable, String text) {
+		LinearLayout layout = new LinearLayout(getContext());
+		layout.setGravity(Gravity.CENTER);
+		layout.setOrientation(LinearLayout.VERTICAL);
+
+		ImageView tab = new ImageView(getContext());
+		setIconImage(position, tab, drawable);
+		tab.setLayoutParams(new LinearLayout.LayoutParams(iconSize, iconSize));
+
+		TextView textView = new TextView(getContext());
+		textView.setText(text);
+		textView.setLayoutParams(new LinearLayout.LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+		textView.setTextColor(getTextColor());
+		layout.addView(tab);
+		layout.addView(textView);
+		addTab(position, layout, tab, textView, null);
+		if (iconColorFilter != 0) {
+			tab.setColorFilter(iconColorFilter);
+			textView.setTextColor(iconColorFilter);
+		}
+	}
+
+	private void setIconImage(int position, ImageView icon, int resId) {
+		if (iconAtlas != null) {
+			// the image view only reserves the space, the icon is drawn from the atlas
+			iconAtlas.put(position, getResources().getDrawable(resId));
+			return;
+		}
+		Bitmap bitmap = downsampleIcons ? iconLoader.decode(resId, iconSize) : null;
+		if (bitmap != null) {
+			icon.setImageBitmap(bitmap);
+			tabRegistry.putIconBitmap(position, bitmap);
+		} else {
+			icon.setImageResource(resId);
+		}
+	}
+
+	private void setIconImage(int position, ImageView icon, Drawable drawable) {
+		if (iconAtlas != null) {
+			iconAtlas.put(position, drawable);
+			return;
+		}
+		Bitmap bitmap = downsampleIcons ? iconLoader.render(drawable, iconSize) : null;
+		if (bitmap != null) {
+			icon.setImageBitmap(bitmap);
+			tabRegistry.putIconBitmap(position, bitmap);
+		} else {
+			icon.setImageDrawable(drawable);
+		}
+	}
+
+	private void releaseIconBitmaps() {
+		for (int i = 0; i < tabRegistry.size(); i++) {
+			Bitmap bitmap = tabRegistry.iconBitmap(i);
+			if (bitmap != null) {
+				tabRegistry.icon(i).setImageDrawable(null);
+				if (tabRegistry.activeIcon(i) != null) {
+					tabRegistry.activeIcon(i).setImageDrawable(null);
+				}
+				if (downsampleIcons) {
+					iconBitmapPool.release(bitmap);
+				} else {
+					// built before downsampling was turned off, nothing will reuse it
+					bitmap.recycle();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Decodes icons at exactly the icon size and reuses their pixel buffers across rebuilds, instead of
+	 * keeping full resolution images that are only scaled down when drawn. Applies to tabs built after
+	 * this call.
+	 */
+	public void setDownsampleIcons(boolean downsampleIcons) {
+		this.downsampleIcons = downsampleIcons;
+		if (downsampleIcons && iconBitmapPool == null) {
+			// enough to recycle the icons of a typical strip
+			iconBitmapPool = new IconBitmapPool(16 * iconSize * iconSize * 4);
+			iconLoader = new IconLoader(getResources(), iconBitmapPool);
+		} else if (!downsampleIcons && iconBitmapPool != null) {
+			iconBitmapPool.clear();
+		}
+	}
+
+	public boolean isDownsampleIcons() {
+		return downsampleIcons;
+	}
+
+	/**
+	 * Returns the number of bytes held by downsampled icon bitmaps, including the reuse pool.
+	 */
+	public int getIconMemoryBytes() {
+		int bytes = iconBitmapPool != null ? iconBitmapPool.getBytes() : 0;
+		for (int i = 0; i < tabRegistry.size(); i++) {
+			Bitmap bitmap = tabRegistry.iconBitmap(i);
+			if (bitmap != null) {
+				bytes += IconBitmapPool.sizeOf(bitmap);
+			}
+		}
+		if (iconAtlas != null) {
+			bytes += iconAtlas.getBytes();
+		}
+		return bytes;
+	}
+
+	/**
+	 * Packs the icons of an {@link IconTabProvider} into a single bitmap at the icon size and draws them
+	 * from it with one shared paint, instead of one drawable per tab. Tinting then happens while drawing,
+	 * so the tint animators never touch the tab views. Applies to tabs built after this call; strips
+	 * with more icons than fit into one texture keep their image views.
+	 */
+	public void setIconAtlas(boolean iconAtlas) {
+		this.iconAtlasEnabled = iconAtlas;
+	}
+
+	public boolean isIconAtlas() {
+		return iconAtlasEnabled;
+	}
+
+	private void releaseIconAtlas() {
+		if (iconAtlas != null) {
+			iconAtlas.recycle();
+			iconAtlas = null;
+		}
+	}
+
+	private void updateAtlasPaints() {
+		if (atlasPaint == null) {
+			atlasPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+			atlasActivePaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+		}
+		int inactive = tintAnimator != null ? colorFilterInActive : iconColorFilter;
+		int active = tintAnimator != null ? colorFilterActive : iconColorFilter;
+		atlasPaint.setColorFilter(inactive != 0 ? new PorterDuffColorFilter(inactive, PorterDuff.Mode.SRC_ATOP) : null);
+		atlasActivePaint.setColorFilter(active != 0 ? new PorterDuffColorFilter(active, PorterDuff.Mode.SRC_ATOP) : null);
+	}
+
+	@Override
+	protected void dispatchDraw(Canvas canvas) {
+		if (isWarmingUp()) {
+			// the tab container is hidden until the warm-up is done
+			super.dispatchDraw(canvas);
+			return;
+		}
+
+		if (useTileCache()) {
+			drawTiles(canvas);
+		} else {
+			super.dispatchDraw(canvas);
+		}
+
+		if (iconAtlas != null && tabCount > 0) {
+			drawAtlasIcons(canvas);
+		}
+	}
+
+	/**
+	 * Draws the tab row from bitmap tiles rendered while the pager and the strip are idle, instead of
+	 * drawing every tab view again on each frame. The selected, scrolling and pressed tabs are always
+	 * drawn live, so their tint and state can change without rendering a tile. The tiles of two screens
+	 * are kept, the least recently drawn ones are evicted. Intended for long strips whose tabs rarely
+	 * change.
+	 */
+	public void setTileCache(boolean tileCache) {
+		this.tileCacheEnabled = tileCache;
+		if (!tileCache) {
+			releaseTileCache();
+		}
+		invalidate();
+	}
+
+	public boolean isTileCache() {
+		return tileCacheEnabled;
+	}
+
+	private boolean useTileCache() {
+		return tileCacheEnabled && tabCount > 0 && tabGeometry.getCount() == tabCount && getWidth() > 0
+				&& tabsContainer.getHeight() > 0;
+	}
+
+	private void releaseTileCache() {
+		if (tileCache != null) {
+			tileCache.release();
+			tileCache = null;
+			getViewTreeObserver().removeOnPreDrawListener(tabInvalidationListener);
+		}
+		if (tileRenderScheduled) {
+			tileRenderScheduled = false;
+			Looper.myQueue().removeIdleHandler(renderTilesWhenIdle);
+		}
+	}
+
+	/**
+	 * Tabs drawn into a tile or inline by drawTiles() are not part of the strip's display list, so
+	 * their own invalidate() does not draw the strip again. Dirty tabs are picked up before each draw.
+	 */
+	private final OnPreDrawListener tabInvalidationListener = new OnPreDrawListener() {
+		@Override
+		public boolean onPreDraw() {
+			if (useTileCache() && !isWarmingUp()) {
+				invalidateDirtyTabs();
+			}
+			return true;
+		}
+	};
+
+	private void invalidateDirtyTabs() {
+		boolean dirty = false;
+		for (int i = drawnFirstTab; i <= drawnLastTab && i < tabCount; i++) {
+			if (isTabDirty(i)) {
+				if (!isLiveTab(i)) {
+					invalidateTabTile(i);
+				}
+				dirty = true;
+			}
+		}
+		for (int i = 0; i < liveTabCount; i++) {
+			dirty |= isTabDirty(liveTabs[i]);
+		}
+		if (dirty) {
+			invalidate();
+		}
+	}
+
+	private boolean isTabDirty(int position) {
+		View tab = tabsContainer.getChildAt(position);
+		// hidden tabs are never drawn, so they would stay dirty
+		return tab != null && tab.getVisibility() == VISIBLE && tab.isDirty();
+	}
+
+	/**
+	 * Draws the strip again once the main thread has nothing else to do, which is after the last frame
+	 * of a fling.
+	 */
+	private final MessageQueue.IdleHandler renderTilesWhenIdle = new MessageQueue.IdleHandler() {
+		@Override
+		public boolean queueIdle() {
+			tileRenderScheduled = false;
+			invalidate();
+			return false;
+		}
+	};
+
+	private void scheduleTileRender() {
+		if (!tileRenderScheduled) {
+			tileRenderScheduled = true;
+			Looper.myQueue().addIdleHandler(renderTilesWhenIdle);
+		}
+	}
+
+	private void invalidateTiles() {
+		if (tileCache != null) {
+			tileCache.invalidateAll();
+		}
+	}
+
+	private void invalidateTabTile(int position) {
+		if (tileCache != null && position >= 0 && position < tabGeometry.getCount()) {
+			tileCache.invalidate(tabGeometry.getLeft(position), tabGeometry.getRight(position));
+		}
+	}
+
+	private void drawTiles(Canvas canvas) {
+		final int width = tabsContainer.getWidth();
+		final int height = tabsContainer.getHeight();
+		if (tileCache == null || tileCache.getHeight() != height) {
+			releaseTileCache();
+			// two screens worth of tiles, enough to scroll back and forth without rendering again
+			tileCache = new TileCache(height, 2 * (getWidth() / TileCache.TILE_WIDTH + 2));
+			getViewTreeObserver().addOnPreDrawListener(tabInvalidationListener);
+		}
+
+		collectLiveTabs();
+
+		// tiles are only rendered once the pager, a far jump and the strip's own fling have settled,
+		// a frame in which the strip scrolled draws live and checks again when the thread is idle
+		int scrollX = getScrollX();
+		boolean stripScrolled = scrollX != lastTileScrollX;
+		lastTileScrollX = scrollX;
+		if (stripScrolled) {
+			scheduleTileRender();
+		}
+		boolean idle = pageScrollState == ViewPager.SCROLL_STATE_IDLE && farJumpAnimator == null && !stripScrolled;
+
+		int viewLeft = scrollX - tabsContainer.getLeft();
+		int viewRight = Math.min(viewLeft + getWidth(), width);
+		int first = Math.max(viewLeft, 0) / TileCache.TILE_WIDTH;
+		int last = (viewRight - 1) / TileCache.TILE_WIDTH;
+		drawnFirstTab = tabGeometry.firstEndingAfter(Math.max(viewLeft, 0));
+		drawnLastTab = Math.min(tabGeometry.lastStartingBefore(viewRight), tabCount - 1);
+
+		canvas.save();
+		canvas.translate(tabsContainer.getLeft(), tabsContainer.getTop());
+
+		for (int i = first; i <= last; i++) {
+			int left = i * TileCache.TILE_WIDTH;
+			int right = Math.min(left + TileCache.TILE_WIDTH, width);
+
+			TileCache.Tile tile = idle ? tileCache.obtain(i) : tileCache.get(i);
+			if (idle && !isTileCurrent(tile)) {
+				renderTile(tile, left, right);
+			}
+
+			if (tile != null && !tile.dirty && !bakesLiveTab(tile)) {
+				canvas.drawBitmap(tile.bitmap, left, 0, null);
+				for (int j = 0; j < tile.excludedCount; j++) {
+					if (!isLiveTab(tile.excluded[j])) {
+						drawTab(canvas, tile.excluded[j], left, right);
+					}
+				}
+			} else {
+				// not rendered yet, or out of date while the pager or the strip is scrolling
+				int firstTab = tabGeometry.firstEndingAfter(left);
+				int lastTab = Math.min(tabGeometry.lastStartingBefore(right), tabCount - 1);
+				canvas.save();
+				canvas.clipRect(left, 0, right, height);
+				drawDividers(canvas, firstTab, lastTab, height);
+				canvas.restore();
+				for (int j = firstTab; j <= lastTab; j++) {
+					if (!isLiveTab(j)) {
+						drawTab(canvas, j, left, right);
+					}
+				}
+			}
+		}
+
+		for (int i = 0; i < liveTabCount; i++) {
+			drawTab(canvas, liveTabs[i], 0, width);
+		}
+
+		canvas.restore();
+	}
+
+	private void renderTile(TileCache.Tile tile, int left, int right) {
+		if (tileCanvas == null) {
+			tileCanvas = new Canvas();
+		}
+		tileCanvas.setBitmap(tile.bitmap);
+		tile.bitmap.eraseColor(0);
+
+		tile.firstTab = tabGeometry.firstEndingAfter(left);
+		tile.lastTab = Math.min(tabGeometry.lastStartingBefore(right), tabCount - 1);
+		tile.excludedCount = 0;
+
+		tileCanvas.save();
+		tileCanvas.translate(-left, 0);
+		drawDividers(tileCanvas, tile.firstTab, tile.lastTab, tile.bitmap.getHeight());
+		for (int i = tile.firstTab; i <= tile.lastTab; i++) {
+			if (isLiveTab(i)) {
+				tile.excluded[tile.excludedCount++] = i;
+			} else {
+				drawTab(tileCanvas, i, left, right);
+			}
+		}
+		tileCanvas.restore();
+		tileCanvas.setBitmap(null);
+
+		tile.dirty = false;
+	}
+
+	/**
+	 * Returns true if the tile was rendered with exactly the tabs that are live now left out.
+	 */
+	private boolean isTileCurrent(TileCache.Tile tile) {
+		if (tile.dirty || bakesLiveTab(tile)) {
+			return false;
+		}
+		for (int i = 0; i < tile.excludedCount; i++) {
+			if (!isLiveTab(tile.excluded[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean bakesLiveTab(TileCache.Tile tile) {
+		for (int i = 0; i < liveTabCount; i++) {
+			if (tile.contains(liveTabs[i]) && !tile.excludes(liveTabs[i])) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void collectLiveTabs() {
+		liveTabCount = 0;
+		addLiveTab(pager != null ? pager.getCurrentItem() : -1);
+		addLiveTab(currentPosition);
+		if (currentPositionOffset > 0f) {
+			addLiveTab(currentPosition + 1);
+		}
+		// the last pressed tab may still be animating its background
+		addLiveTab(lastPressedPosition);
+		addLiveTab(focusedTabPosition());
+	}
+
+	private void addLiveTab(int position) {
+		if (position >= 0 && position < tabCount && !isLiveTab(position)) {
+			liveTabs[liveTabCount++] = position;
+		}
+	}
+
+	private boolean isLiveTab(int position) {
+		for (int i = 0; i < liveTabCount; i++) {
+			if (liveTabs[i] == position) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void drawTab(Canvas canvas, int position, int clipLeft, int clipRight) {
+		View tab = tabsContainer.getChildAt(position);
+		if (tab.getVisibility() != VISIBLE) {
+			return;
+		}
+		canvas.save();
+		canvas.clipRect(clipLeft, 0, clipRight, tabsContainer.getHeight());
+		canvas.translate(tab.getLeft(), tab.getTop());
+		tab.draw(canvas);
+		canvas.restore();
+	}
+
+	private void drawDividers(Canvas canvas, int first, int last, int height) {
+		if (qualityLevel >= QUALITY_NO_DIVIDERS) {
+			return;
+		}
+		dividerPaint.setColor(dividerColor);
+		for (int i = first; i <= last && i < tabCount - 1; i++) {
+			View tab = tabsContainer.getChildAt(i);
+			canvas.drawLine(tab.getRight(), dividerPadding, tab.getRight(), height - dividerPadding, dividerPaint);
+		}
+	}
+
+	private void drawAtlasIcons(Canvas canvas) {
+		int left = getScrollX() - tabsContainer.getLeft();
+		int first = tabGeometry.firstEndingAfter(left);
+		int last = Math.min(tabGeometry.lastStartingBefore(left + getWidth()), tabCount - 1);
+
+		// with snapped tints only the selected tab is drawn active
+		boolean snap = qualityLevel >= QUALITY_SNAP_TINT && pager != null;
+		int selected = snap ? pager.getCurrentItem() : currentPosition;
+		float offset = snap ? 0f : currentPositionOffset;
+
+		for (int i = first; i <= last; i++) {
+			View icon = tabRegistry.icon(i);
+			if (icon == null) {
+				continue;
+			}
+
+			int x = icon.getLeft();
+			int y = icon.getTop();
+			for (View parent = (View) icon.getParent(); parent != this; parent = (View) parent.getParent()) {
+				x += parent.getLeft();
+				y += parent.getTop();
+			}
+
+			float active = i == selected ? 1f - offset : i == selected + 1 ? offset : 0f;
+			if (active < 1f) {
+				atlasPaint.setAlpha((int) (255 * (1f - active)));
+				iconAtlas.draw(canvas, i, x, y, iconSize, atlasPaint);
+			}
+			if (active > 0f) {
+				atlasActivePaint.setAlpha((int) (255 * active));
+				iconAtlas.draw(canvas, i, x, y, iconSize, atlasActivePaint);
+			}
+		}
+	}
+
+	private void addTab(int position, View tab, ImageView icon, TextView title, TextView counter) {
+		if (hasTintLayers()) {
+			ImageView activeIcon = null;
+			TextView activeTitle = null;
+
+			if (icon != null && iconAtlas == null) {
+				activeIcon = new ImageView(getContext());
+				activeIcon.setImageDrawable(copyOf(icon.getDrawable()));
+				activeIcon.setColorFilter(colorFilterActive);
+				activeIcon.setAlpha(0f);
+				icon.setColorFilter(colorFilterInActive);
+				stackLayers(icon, activeIcon);
+			}
+
+			if (title != null) {
+				activeTitle = new TextView(getContext());
+				activeTitle.setText(title.getText());
+				activeTitle.setGravity(title.getGravity());
+				activeTitle.setSingleLine();
+				activeTitle.setTextSize(TypedValue.COMPLEX_UNIT_PX, title.getTextSize());
+				activeTitle.setTypeface(title.getTypeface());
+				activeTitle.setTextColor(colorFilterActive);
+				activeTitle.setAlpha(0f);
+				title.setTextColor(colorFilterInActive);
+				View layer = stackLayers(title, activeTitle);
+				if (title == tab) {
+					// a plain text tab keeps its title id so updateTabStyles() can find it inside the layer
+					title.setId(R.id.title);
+					tab = layer;
+				}
+			}
+
+			tabRegistry.putActiveLayers(position, activeIcon, activeTitle);
+		}
+
+		// focusable for keyboard and D-pad users, clicks are handled by the strip
+		tab.setFocusable(true);
+		tab.setPadding(tabPadding, 0, tabPadding, 0);
+		tabsContainer.addView(tab, position, defaultTabLayoutParams);
+		tabRegistry.put(position, tab, icon, title, counter);
+	}
+
+	private void updateTabStyles() {
+
+		boolean traced = beginTrace(TRACE_UPDATE_TAB_STYLES);
+		try {
+			for (int i = 0; i < tabCount; i++) {
+
+				View v = tabsContainer.getChildAt(i);
+
+				v.setBackgroundResource(sharedTabBackground ? 0 : tabBackgroundResId);
+
+				if (v instanceof ViewGroup) {
+					v = v.findViewById(R.id.title);
+				}
+
+				if (v instanceof TextView) {
+
+					TextView tab = (TextView) v;
+					styleTitle(tab);
+
+					TextView activeTitle = tabRegistry.activeTitle(i);
+					if (activeTitle != null && tab == tabRegistry.title(i)) {
+						styleTitle(activeTitle);
+					}
+				}
+			}
+
+			updateLayerTints();
+			invalidateTiles();
+		} finally {
+			endTrace(traced);
+		}
+	}
+
+	private void styleTitle(TextView tab) {
+		tab.setTextSize(TypedValue.COMPLEX_UNIT_PX, tabTextSize);
+		tab.setTypeface(tabTypeface, tabTypefaceStyle);
+		tab.setTextColor(tabTextColor);
+
+		// setAllCaps() is only available from API 14, so the upper case is made manually if we are on a
+		// pre-ICS-build
+		if (textAllCaps) {
+			if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.ICE_CREAM_SANDWICH) {
+				tab.setAllCaps(true);
+			} else {
+				tab.setText(tab.getText().toString().toUpperCase(locale));
+			}
+		}
+	}
+
+	private Drawable copyOf(Drawable drawable) {
+		if (drawable == null || drawable.getConstantState() == null) {
+			return drawable;
+		}
+		return drawable.getConstantState().newDrawable(getResources()).mutate();
+	}
+
+	/**
+	 * Puts {@code active} on top of {@code view} in a new frame that takes the place of {@code view}
+	 * in its parent, if it has one.
+	 */
+	private View stackLayers(View view, View active) {
+		FrameLayout layer = new FrameLayout(getContext());
+
+		ViewGroup parent = (ViewGroup) view.getParent();
+		if (parent != null) {
+			int index = parent.indexOfChild(view);
+			ViewGroup.LayoutParams params = view.getLayoutParams();
+			parent.removeView(view);
+			parent.addView(layer, index, params);
+		}
+
+		layer.addView(view, new FrameLayout.LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT));
+		layer.addView(active, new FrameLayout.LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT));
+		return layer;
+	}
+
+	private void updateLayerTints() {
+		if (!hasTintLayers()) {
+			return;
+		}
+
+		for (int i = 0; i < tabRegistry.size(); i++) {
+			ImageView activeIcon = tabRegistry.activeIcon(i);
+			if (activeIcon != null) {
+				tabRegistry.icon(i).setColorFilter(colorFilterInActive);
+				activeIcon.setColorFilter(colorFilterActive);
+			}
+
+			TextView activeTitle = tabRegistry.activeTitle(i);
+			if (activeTitle != null) {
+				tabRegistry.title(i).setTextColor(colorFilterInActive);
+				activeTitle.setTextColor(colorFilterActive);
+			}
+		}
+	}
+
+	/**
+	 * Shows the active layer of the tab at {@code position} with {@code 1 - offset} and the one of the
+	 * following tab with {@code offset}. Tabs that were faded in before are reset to inactive.
+	 */
+	private void applyCrossfade(int position, float offset) {
+		if (!hasTintLayers()) {
+			return;
+		}
+
+		int next = offset > 0f ? position + 1 : -1;
+		if (crossfadeFirst != position && crossfadeFirst != next) {
+			setTabActiveFraction(crossfadeFirst, 0f);
+		}
+		if (crossfadeSecond != position && crossfadeSecond != next) {
+			setTabActiveFraction(crossfadeSecond, 0f);
+		}
+
+		setTabActiveFraction(position, 1f - offset);
+		setTabActiveFraction(next, offset);
+		crossfadeFirst = position;
+		crossfadeSecond = next;
+	}
+
+	private void setTabActiveFraction(int position, float fraction) {
+		ImageView activeIcon = tabRegistry.activeIcon(position);
+		if (activeIcon != null) {
+			activeIcon.setAlpha(fraction);
+			tabRegistry.icon(position).setAlpha(1f - fraction);
+		}
+
+		TextView activeTitle = tabRegistry.activeTitle(position);
+		if (activeTitle != null) {
+			activeTitle.setAlpha(fraction);
+			tabRegistry.title(position).setAlpha(1f - fraction);
+		}
+	}
+
+	private void scrollToChild(int position, int offset) {
+
+		if (tabCount == 0) {
+			return;
+		}
+
+		boolean traced = beginTrace(TRACE_SCROLL_TO_CHILD);
+		try {
+			int newScrollX = tabsContainer.getChildAt(position).getLeft() + offset;
+
+			if (position > 0 || offset > 0) {
+				newScrollX -= scrollOffset;
+			}
+
+			if (newScrollX != lastScrollX) {
+				lastScrollX = newScrollX;
+				scrollTo(newScrollX, 0);
+			}
+		} finally {
+			endTrace(traced);
+		}
+	}
+
+	@Override
+	protected void onLayout(boolean changed, int l, int t, int r, int b) {
+		super.onLayout(changed, l, t, r, b);
+		// a layout requested from inside a single tab, e.g. by a new count, leaves the other tiles valid
+		if (tabGeometry.update(tabsContainer)) {
+			invalidateTiles();
+		}
+		updateVisibleTabs();
+	}
+
+	@Override
+	protected void onScrollChanged(int l, int t, int oldl, int oldt) {
+		super.onScrollChanged(l, t, oldl, oldt);
+		updateVisibleTabs();
+	}
+
+	@Override
+	protected void onWindowVisibilityChanged(int visibility) {
+		super.onWindowVisibilityChanged(visibility);
+		setVisibleToUser(visibility == VISIBLE && isShown());
+	}
+
+	@Override
+	protected void onVisibilityChanged(View changedView, int visibility) {
+		super.onVisibilityChanged(changedView, visibility);
+		setVisibleToUser(isShown() && getWindowVisibility() == VISIBLE);
+	}
+
+	@Override
+	public void onVisibilityAggregated(boolean isVisible) {
+		super.onVisibilityAggregated(isVisible);
+		setVisibleToUser(isVisible);
+	}
+
+	private void setVisibleToUser(boolean visible) {
+		visibleToUser = visible;
+		if (visible && catchUpPending) {
+			catchUp();
+		}
+	}
+
+	/**
+	 * Returns false if the strip is hidden, its window is in the background or it is scrolled off-screen,
+	 * e.g. in a collapsed toolbar. Scroll-driven work is skipped while it can not be seen.
+	 */
+	private boolean isVisibleToUser() {
+		return visibleToUser && getGlobalVisibleRect(visibleRect);
 	}
 
-	public void notifyDataSetChanged() {
+	private void requestCatchUp() {
+		if (!catchUpPending) {
+			catchUpPending = true;
+			// visibility callbacks do not cover scrolling back on-screen, so check again before each frame
+			getViewTreeObserver().addOnPreDrawListener(catchUpListener);
+		}
+	}
 
-		tabsContainer.removeAllViews();
+	private final OnPreDrawListener catchUpListener = new OnPreDrawListener() {
+		@Override
+		public boolean onPreDraw() {
+			if (isVisibleToUser()) {
+				catchUp();
+			}
+			return true;
+		}
+	};
 
-		tabCount = pager.getAdapter().getCount();
+	/**
+	 * Applies the latest pager position that was recorded while the strip could not be seen.
+	 */
+	private void catchUp() {
+		catchUpPending = false;
+		getViewTreeObserver().removeOnPreDrawListener(catchUpListener);
 
-		for (int i = 0; i < tabCount; i++) {
+		if (tabCount == 0 || currentPosition >= tabCount) {
+			return;
+		}
 
-			if (pager.getAdapter() instanceof IconTabProvider) {
-				int resId = ((IconTabProvider) pager.getAdapter()).getPageIconResId(i);
-				CharSequence title = pager.getAdapter().getPageTitle(i);
-				hasIcon = true;
-				if (resId != 0) {
-					addIconTab(i, resId);
-				} else {
-					if (title == null) {
-						addIconTab(i, ((IconTabProvider) pager.getAdapter()).getPageIconDrawable(i));
-					} else {
-						addIconTabWithText(i, ((IconTabProvider) pager.getAdapter()).getPageIconDrawable(i), title.toString());
-					}
-				}
-			} else if (pager.getAdapter() instanceof NotificationTabProvider && ((NotificationTabProvider) pager.getAdapter()).hasNotification(i)) {
-				addTextTabWithNotification(i, pager.getAdapter().getPageTitle(i).toString());
-			} else {
-				addTextTab(i, pager.getAdapter().getPageTitle(i).toString());
-			}
+		View tab = tabsContainer.getChildAt(currentPosition);
+		scrollToChild(currentPosition, (int) (currentPositionOffset * tab.getWidth()));
 
+		if (hasTintLayers()) {
+			applyCrossfade(currentPosition, currentPositionOffset);
+		} else if (pager != null) {
+			snapTint(pager.getCurrentItem());
 		}
 
-		updateTabStyles();
-
-		getViewTreeObserver().addOnGlobalLayoutListener(new OnGlobalLayoutListener() {
+		invalidate();
+	}
 
-			@SuppressWarnings("deprecation")
-			@SuppressLint("NewApi")
-			@Override
-			public void onGlobalLayout() {
+	@Override
+	protected void onAttachedToWindow() {
+		super.onAttachedToWindow();
+		getViewTreeObserver().addOnGlobalFocusChangeListener(focusListener);
+
+		AccessibilityManager accessibilityManager = getAccessibilityManager();
+		if (accessibilityManager != null) {
+			accessibilityManager.addAccessibilityStateChangeListener(accessibilityListener);
+			if (accessibilityManager.isEnabled()) {
+				installAccessibilityHelper();
+			}
+		}
 
-				if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
-					getViewTreeObserver().removeGlobalOnLayoutListener(this);
-				} else {
-					getViewTreeObserver().removeOnGlobalLayoutListener(this);
-				}
+		if (pager == null) {
+			return;
+		}
 
-				currentPosition = pager.getCurrentItem();
-				scrollToChild(currentPosition, 0);
-			}
-		});
+		pager.removeOnPageChangeListener(pageListener);
+		pager.addOnPageChangeListener(pageListener);
+		listeningToPager = true;
 
+		if (tabsReleased) {
+			tabsReleased = false;
+			notifyDataSetChanged();
+		} else {
+			// the pager may have moved while the strip was not listening
+			scrollToCurrentTabOnLayout();
+		}
 	}
 
-	public boolean isFitWindow() {
-		return fitWindow;
+	@Override
+	protected void onDetachedFromWindow() {
+		super.onDetachedFromWindow();
+		getViewTreeObserver().removeOnGlobalFocusChangeListener(focusListener);
+		AccessibilityManager accessibilityManager = getAccessibilityManager();
+		if (accessibilityManager != null) {
+			accessibilityManager.removeAccessibilityStateChangeListener(accessibilityListener);
+		}
+		visibleTabsTracker.cancel();
+		if (catchUpPending) {
+			catchUpPending = false;
+			getViewTreeObserver().removeOnPreDrawListener(catchUpListener);
+		}
+		cancelWarmUp();
+		removeCallbacks(releasePressedTab);
+		setPressedTab(-1);
+		releaseTintState();
+		releaseTileCache();
+		cancelFarJump();
+
+		// a gesture cut off by the detach never reaches idle
+		pageScrollState = ViewPager.SCROLL_STATE_IDLE;
+		applyDeferredUpdates();
+
+		if (qualityMonitor != null) {
+			qualityMonitor.stop();
+			restoreQuality();
+		}
+
+		if (pager != null) {
+			pager.removeOnPageChangeListener(pageListener);
+			listeningToPager = false;
+
+			if (releaseTabsWhenDetached) {
+				releaseTabs();
+				tabsReleased = true;
+			}
+		}
 	}
 
-	public void setFitWindow(boolean fitWindow) {
-		this.fitWindow = fitWindow;
+	private void updateVisibleTabs() {
+		if (isWarmingUp()) {
+			return;
+		}
+		int left = getScrollX() - tabsContainer.getLeft();
+		visibleTabsTracker.onViewportChanged(left, left + getWidth());
 	}
 
-	private void addTextTab(final int position, String title) {
+	@Override
+	public boolean dispatchTouchEvent(MotionEvent ev) {
+		int action = ev.getActionMasked();
+		if (action == MotionEvent.ACTION_DOWN) {
+			touchStoppedFling = false;
+			removeCallbacks(releasePressedTab);
+			setPressedTab(-1);
+		}
 
-		TextView tab = new TextView(getContext());
-		tab.setText(title);
-		tab.setGravity(Gravity.CENTER);
-		tab.setSingleLine();
+		// the scroll view sees the touch first, so a tap that stops a fling is known before it is resolved
+		boolean handled = super.dispatchTouchEvent(ev);
+		boolean tapped = tabGestureDetector.onTouchEvent(ev);
 
-		addTab(position, tab);
-		textViews.add(tab);
-		if (iconColorFilter != 0) {
-			tab.setTextColor(iconColorFilter);
+		if (action == MotionEvent.ACTION_UP && tapped) {
+			// a quick tap never reaches onShowPress, keep the tab pressed for a moment like a view does
+			postDelayed(releasePressedTab, ViewConfiguration.getPressedStateDuration());
+		} else if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
+			setPressedTab(-1);
 		}
+
+		return handled;
 	}
 
-	private void addTextTabWithNotification(final int position, String titleStr) {
+	@Override
+	public boolean onInterceptTouchEvent(MotionEvent ev) {
+		boolean intercept = super.onInterceptTouchEvent(ev);
+		if (ev.getActionMasked() == MotionEvent.ACTION_DOWN && intercept) {
+			// the scroll view only intercepts a down event while it is still flinging
+			touchStoppedFling = true;
+		}
+		return intercept;
+	}
 
-		View tab = LayoutInflater.from(getContext()).inflate(R.layout.notification_text, null, false);
+	private final Runnable releasePressedTab = new Runnable() {
+		@Override
+		public void run() {
+			setPressedTab(-1);
+		}
+	};
 
-		TextView title = (TextView) tab.findViewById(R.id.title);
-		TextView counter = (TextView) tab.findViewById(R.id.notification);
+	@Override
+	public boolean dispatchKeyEvent(KeyEvent event) {
+		int position = focusedTabPosition();
+		if (position < 0 || pager == null || !isConfirmKey(event.getKeyCode())) {
+			return super.dispatchKeyEvent(event);
+		}
 
-		counters.add(position, counter);
-		title.setText(titleStr);
-		textViews.add(title);
-		addTab(position, tab);
-		if (iconColorFilter != 0) {
-			title.setTextColor(iconColorFilter);
+		if (event.getAction() == KeyEvent.ACTION_DOWN) {
+			if (event.getRepeatCount() == 0) {
+				setPressedTab(position);
+			}
+		} else if (event.getAction() == KeyEvent.ACTION_UP) {
+			boolean pressed = pressedPosition == position;
+			setPressedTab(-1);
+			if (pressed && !event.isCanceled()) {
+				playSoundEffect(SoundEffectConstants.CLICK);
+				performTabClick(position);
+			}
 		}
+		return true;
 	}
 
-	public void updateNotificationCounter(int index, int value) {
-		if (value == 0) {
-			counters.get(index).setVisibility(GONE);
-		} else {
-			counters.get(index).setVisibility(VISIBLE);
-			counters.get(index).setText(String.valueOf(value));
-		}
+	private static boolean isConfirmKey(int keyCode) {
+		return keyCode == KeyEvent.KEYCODE_DPAD_CENTER || keyCode == KeyEvent.KEYCODE_ENTER
+				|| keyCode == KeyEvent.KEYCODE_NUMPAD_ENTER;
 	}
 
-	public void setLinePaddingFromBottom(int linePaddingFromBottom) {
-		this.linePaddingFromBottom = linePaddingFromBottom;
+	private int focusedTabPosition() {
+		View focused = tabsContainer.getFocusedChild();
+		return focused != null ? tabsContainer.indexOfChild(focused) : -1;
 	}
 
-	private void addIconTab(final int position, int resId) {
-		LinearLayout layout = new LinearLayout(getContext());
-		layout.setGravity(Gravity.CENTER);
-		ImageView tab = new ImageView(getContext());
-		tab.setImageResource(resId);
-		tab.setLayoutParams(new LinearLayout.LayoutParams(iconSize, iconSize));
-		if (iconColorFilter != 0) {
-			tab.setColorFilter(iconColorFilter);
-		}
-		layout.addView(tab);
-		addTab(position, layout);
-		icons.add(tab);
+	private int tabPositionAt(MotionEvent ev) {
+		return tabPositionAt(ev.getX());
 	}
 
-	private void addIconTab(final int position, Drawable drawable) {
-		LinearLayout layout = new LinearLayout(getContext());
-		layout.setGravity(Gravity.CENTER);
-		ImageView tab = new ImageView(getContext());
-		tab.setImageDrawable(drawable);
-		if (iconColorFilter != 0) {
-			tab.setColorFilter(iconColorFilter);
+	int tabPositionAt(float viewX) {
+		if (pager == null || tabCount == 0) {
+			return -1;
 		}
-		tab.setLayoutParams(new LinearLayout.LayoutParams(iconSize, iconSize));
-		layout.addView(tab);
-		addTab(position, layout);
-		icons.add(tab);
+		int x = (int) viewX + getScrollX() - tabsContainer.getLeft();
+		int position = tabGeometry.indexAt(x);
+		return position < tabCount ? position : -1;
 	}
 
-	private void addIconTabWithText(final int position, Drawable drawable, String text) {
-		LinearLayout layout = new LinearLayout(getContext());
-		layout.setGravity(Gravity.CENTER);
-		layout.setOrientation(LinearLayout.VERTICAL);
-		if (fitWindow) {
-			LinearLayout.LayoutParams layoutParams = new LinearLayout.LayoutParams(screenWidth / tabCount, ViewGroup.LayoutParams.MATCH_PARENT);
-			layoutParams.gravity = Gravity.CENTER;
-			layout.setLayoutParams(layoutParams);
-		}
+	int getTabCount() {
+		return isWarmingUp() ? 0 : tabCount;
+	}
 
-		ImageView tab = new ImageView(getContext());
-		tab.setImageDrawable(drawable);
-		tab.setLayoutParams(new LinearLayout.LayoutParams(iconSize, iconSize));
+	/**
+	 * Returns the bounds of the tab at {@code position} in the coordinates of the strip as it is
+	 * currently scrolled.
+	 */
+	void getTabBounds(int position, Rect outRect) {
+		if (position >= tabGeometry.getCount()) {
+			outRect.setEmpty();
+			return;
+		}
+		int offset = tabsContainer.getLeft() - getScrollX();
+		outRect.set(tabGeometry.getLeft(position) + offset, 0, tabGeometry.getRight(position) + offset, getHeight());
+	}
 
-		TextView textView = new TextView(getContext());
-		textView.setText(text);
-		textView.setLayoutParams(new LinearLayout.LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT));
-		textView.setTextColor(getTextColor());
-		layout.addView(tab);
-		layout.addView(textView);
-		addTab(position, layout);
-		icons.add(tab);
-		textViews.add(textView);
-		if (iconColorFilter != 0) {
-			tab.setColorFilter(iconColorFilter);
-			textView.setTextColor(iconColorFilter);
+	CharSequence getTabTitle(int position) {
+		TextView title = tabRegistry.title(position);
+		if (title != null) {
+			return title.getText();
+		}
+		View tab = tabRegistry.tab(position);
+		if (tab != null && tab.getContentDescription() != null) {
+			return tab.getContentDescription();
 		}
+		return pager != null && !(pager.getAdapter() instanceof AsyncTitleProvider)
+				? pager.getAdapter().getPageTitle(position) : null;
 	}
 
-	private void addTab(final int position, View tab) {
-		tab.setFocusable(true);
-		tab.setOnClickListener(new OnClickListener() {
-			@Override
-			public void onClick(View v) {
-				pager.setCurrentItem(position);
+	boolean isTabSelected(int position) {
+		return pager != null && pager.getCurrentItem() == position;
+	}
+
+	void performTabClick(int position) {
+		if (pager == null) {
+			// warmed up tabs can be seen before the strip is bound
+			return;
+		}
+		if (position == pager.getCurrentItem()) {
+			if (tabReselectedListener != null) {
+				tabReselectedListener.onTabReselected(position);
 			}
-		});
+		} else if (farJumpThreshold > 0 && Math.abs(position - pager.getCurrentItem()) > farJumpThreshold) {
+			farJump(position);
+		} else {
+			pager.setCurrentItem(position);
+		}
+	}
 
-		tab.setPadding(tabPadding, 0, tabPadding, 0);
-		tabsContainer.addView(tab, position, shouldExpand ? expandedTabLayoutParams : defaultTabLayoutParams);
+	/**
+	 * Switches the pager without a smooth scroll when a tab more than {@code tabs} positions away from
+	 * the current one is clicked. The strip then animates its indicator and scroll straight to the new
+	 * tab, instead of following the pager through every page in between. Zero, the default, turns it off.
+	 */
+	public void setFarJumpThreshold(int tabs) {
+		this.farJumpThreshold = tabs;
 	}
 
-	private void updateTabStyles() {
+	public int getFarJumpThreshold() {
+		return farJumpThreshold;
+	}
 
-		for (int i = 0; i < tabCount; i++) {
+	private void farJump(int position) {
+		cancelFarJump();
 
-			View v = tabsContainer.getChildAt(i);
+		farJumpFrom = Math.min(Math.round(currentPosition + currentPositionOffset), tabCount - 1);
+		farJumpTo = position;
+		farJumpFraction = 0f;
 
-			v.setBackgroundResource(tabBackgroundResId);
+		final int startScrollX = getScrollX();
+		int scrollX = tabsContainer.getChildAt(position).getLeft();
+		final int endScrollX = position > 0 ? scrollX - scrollOffset : scrollX;
 
-			if (v instanceof LinearLayout) {
-				v = v.findViewById(R.id.title);
+		final ValueAnimator animator = ValueAnimator.ofFloat(0f, 1f);
+		animator.setDuration(getResources().getInteger(android.R.integer.config_shortAnimTime));
+		animator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+			@Override
+			public void onAnimationUpdate(ValueAnimator animation) {
+				farJumpFraction = (float) animation.getAnimatedValue();
+				scrollTo((int) (startScrollX + farJumpFraction * (endScrollX - startScrollX)), 0);
+				invalidate();
+			}
+		});
+		animator.addListener(new AnimatorListenerAdapter() {
+			@Override
+			public void onAnimationEnd(Animator animation) {
+				if (farJumpAnimator == animator) {
+					farJumpAnimator = null;
+					scrollToChild(currentPosition, 0);
+					invalidate();
+				}
 			}
+		});
+		// set before the pager is moved, so the page listener leaves the indicator to the animation
+		farJumpAnimator = animator;
+
+		pager.setCurrentItem(position, false);
+		snapTint(position);
+		if (!hasTintLayers() && tintAnimator != null) {
+			// the next swipe starts from the new tab
+			currentIcon = tabRegistry.icon(position);
+			currentText = tabRegistry.title(position);
+			nextIcon = null;
+			nextText = null;
+		}
 
-			if (v instanceof TextView) {
+		animator.start();
+	}
 
-				TextView tab = (TextView) v;
-				tab.setTextSize(TypedValue.COMPLEX_UNIT_PX, tabTextSize);
-				tab.setTypeface(tabTypeface, tabTypefaceStyle);
-				tab.setTextColor(tabTextColor);
+	private void cancelFarJump() {
+		if (farJumpAnimator != null) {
+			farJumpAnimator.cancel();
+		}
+	}
 
-				// setAllCaps() is only available from API 14, so the upper case is made manually if we are on a
-				// pre-ICS-build
-				if (textAllCaps) {
-					if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.ICE_CREAM_SANDWICH) {
-						tab.setAllCaps(true);
-					} else {
-						tab.setText(tab.getText().toString().toUpperCase(locale));
+	private final AccessibilityManager.AccessibilityStateChangeListener accessibilityListener =
+			new AccessibilityManager.AccessibilityStateChangeListener() {
+				@Override
+				public void onAccessibilityStateChanged(boolean enabled) {
+					if (enabled) {
+						installAccessibilityHelper();
 					}
 				}
-			}
+			};
+
+	/**
+	 * The virtual tab nodes are only created once an accessibility service is turned on.
+	 */
+	private void installAccessibilityHelper() {
+		if (accessibilityHelper != null) {
+			return;
 		}
+		accessibilityHelper = new TabAccessibilityHelper(this);
+		ViewCompat.setAccessibilityDelegate(this, accessibilityHelper);
+		// the tab views stay for drawing, but services only see the virtual nodes
+		tabsContainer.hideTabsFromAccessibility();
+	}
 
+	@Override
+	protected boolean dispatchHoverEvent(MotionEvent event) {
+		return accessibilityHelper != null && accessibilityHelper.dispatchHoverEvent(event) || super.dispatchHoverEvent(event);
 	}
 
-	private void scrollToChild(int position, int offset) {
+	private AccessibilityManager getAccessibilityManager() {
+		return (AccessibilityManager) getContext().getSystemService(Context.ACCESSIBILITY_SERVICE);
+	}
 
-		if (tabCount == 0) {
+	private void invalidateAccessibility() {
+		if (accessibilityHelper != null) {
+			accessibilityHelper.invalidateRoot();
+		}
+	}
+
+	void setPressedTab(int position) {
+		if (position == pressedPosition) {
+			return;
+		}
+		if (pressedPosition >= 0 && pressedPosition < tabsContainer.getChildCount()) {
+			tabsContainer.getChildAt(pressedPosition).setPressed(false);
+		}
+		pressedPosition = position;
+		if (position >= 0) {
+			lastPressedPosition = position;
+		}
+		if (position >= 0 && position < tabsContainer.getChildCount()) {
+			tabsContainer.getChildAt(position).setPressed(true);
+		}
+
+		updateSharedTabBackground();
+	}
+
+	/**
+	 * Moves the shared background to the pressed tab or, if none is pressed, the focused one.
+	 */
+	private void updateSharedTabBackground() {
+		if (!sharedTabBackground) {
 			return;
 		}
 
-		int newScrollX = tabsContainer.getChildAt(position).getLeft() + offset;
+		int focused = focusedTabPosition();
+		int position = pressedPosition >= 0 ? pressedPosition : focused;
+		// keep drawing the released tab so the drawable can fade out
+		if (position >= 0) {
+			tabBackgroundPosition = position;
+		}
+
+		int[] state = pressedPosition >= 0 ? PRESSED_STATE_SET : focused >= 0 ? FOCUSED_STATE_SET : EMPTY_STATE_SET;
+		getTabBackgroundDrawable().setState(state);
+		invalidate();
+	}
+
+	private final OnGlobalFocusChangeListener focusListener = new OnGlobalFocusChangeListener() {
+		@Override
+		public void onGlobalFocusChanged(View oldFocus, View newFocus) {
+			updateSharedTabBackground();
+		}
+	};
 
-		if (position > 0 || offset > 0) {
-			newScrollX -= scrollOffset;
+	/**
+	 * Returns the tab the shared background is drawn behind, or null if it is not drawn.
+	 */
+	View getSharedBackgroundTab() {
+		if (sharedTabBackground && tabBackgroundPosition >= 0 && tabBackgroundPosition < tabCount) {
+			return tabsContainer.getChildAt(tabBackgroundPosition);
 		}
+		return null;
+	}
+
+	/**
+	 * Draws a single tab background drawable behind the pressed or focused tab instead of giving every
+	 * tab its own background. Saves one layer of overdraw across the whole strip and the per-tab
+	 * drawable state.
+	 */
+	public void setSharedTabBackground(boolean sharedTabBackground) {
+		this.sharedTabBackground = sharedTabBackground;
+		tabBackgroundPosition = -1;
+		requestTabStyles();
+		updateSharedTabBackground();
+		invalidate();
+	}
+
+	public boolean isSharedTabBackground() {
+		return sharedTabBackground;
+	}
 
-		if (newScrollX != lastScrollX) {
-			lastScrollX = newScrollX;
-			scrollTo(newScrollX, 0);
+	private Drawable getTabBackgroundDrawable() {
+		if (tabBackground == null) {
+			tabBackground = getResources().getDrawable(tabBackgroundResId).mutate();
+			tabBackground.setCallback(this);
 		}
+		return tabBackground;
+	}
 
+	@Override
+	protected boolean verifyDrawable(Drawable who) {
+		return who == tabBackground || super.verifyDrawable(who);
 	}
 
 	@Override
 	protected void onDraw(Canvas canvas) {
 		super.onDraw(canvas);
 
-		if (isInEditMode() || tabCount == 0) {
+		if (isInEditMode() || tabCount == 0 || isWarmingUp()) {
 			return;
 		}
 
-		final int height = getHeight();
+		boolean traced = beginTrace(TRACE_DRAW);
+		try {
+			final int height = getHeight();
 
-		// draw indicator line
+			// draw the shared background behind the pressed or focused tab
 
-		rectPaint.setColor(indicatorColor);
+			View tab = getSharedBackgroundTab();
+			if (tab != null) {
+				Drawable background = getTabBackgroundDrawable();
+				background.setBounds(tab.getLeft(), 0, tab.getRight(), height);
+				background.draw(canvas);
+			}
 
-		// default: line below current tab
-		View currentTab = tabsContainer.getChildAt(currentPosition);
-		float lineLeft = currentTab.getLeft();
-		float lineRight = currentTab.getRight();
+			// draw indicator line
 
-		// if there is an offset, start interpolating left and right coordinates between current and next tab
-		if (currentPositionOffset > 0f && currentPosition < tabCount - 1) {
+			rectPaint.setColor(indicatorColor);
 
-			View nextTab = tabsContainer.getChildAt(currentPosition + 1);
-			final float nextTabLeft = nextTab.getLeft();
-			final float nextTabRight = nextTab.getRight();
+			// default: line below current tab
+			View currentTab = tabsContainer.getChildAt(currentPosition);
+			float lineLeft = currentTab.getLeft();
+			float lineRight = currentTab.getRight();
 
-			lineLeft = (currentPositionOffset * nextTabLeft + (1f - currentPositionOffset) * lineLeft);
-			lineRight = (currentPositionOffset * nextTabRight + (1f - currentPositionOffset) * lineRight);
-		}
+			// if there is an offset, start interpolating left and right coordinates between current and next tab
+			if (currentPositionOffset > 0f && currentPosition < tabCount - 1) {
 
-		canvas.drawRect(lineLeft, height - indicatorHeight - linePaddingFromBottom, lineRight, height - linePaddingFromBottom, rectPaint);
+				View nextTab = tabsContainer.getChildAt(currentPosition + 1);
+				final float nextTabLeft = nextTab.getLeft();
+				final float nextTabRight = nextTab.getRight();
 
-		// draw underline
+				lineLeft = (currentPositionOffset * nextTabLeft + (1f - currentPositionOffset) * lineLeft);
+				lineRight = (currentPositionOffset * nextTabRight + (1f - currentPositionOffset) * lineRight);
+			}
 
-		rectPaint.setColor(underlineColor);
-		canvas.drawRect(0, height - underlineHeight, tabsContainer.getWidth(), height, rectPaint);
+			// during a far jump the line moves straight from the old to the new tab
+			if (farJumpAnimator != null && farJumpFrom < tabCount && farJumpTo < tabCount) {
+				View fromTab = tabsContainer.getChildAt(farJumpFrom);
+				View toTab = tabsContainer.getChildAt(farJumpTo);
+				lineLeft = farJumpFraction * toTab.getLeft() + (1f - farJumpFraction) * fromTab.getLeft();
+				lineRight = farJumpFraction * toTab.getRight() + (1f - farJumpFraction) * fromTab.getRight();
+			}
 
-		// draw divider
+			canvas.drawRect(lineLeft, height - indicatorHeight - linePaddingFromBottom, lineRight, height - linePaddingFromBottom, rectPaint);
 
-		dividerPaint.setColor(dividerColor);
-		for (int i = 0; i < tabCount - 1; i++) {
-			View tab = tabsContainer.getChildAt(i);
-			canvas.drawLine(tab.getRight(), dividerPadding, tab.getRight(), height - dividerPadding, dividerPaint);
+			// draw underline
+
+			rectPaint.setColor(underlineColor);
+			canvas.drawRect(0, height - underlineHeight, tabsContainer.getWidth(), height, rectPaint);
+
+			// draw divider, unless it is part of the tiles
+
+			if (!useTileCache()) {
+				drawDividers(canvas, 0, tabCount - 1, height);
+			}
+		} finally {
+			endTrace(traced);
 		}
 	}
 
 
+	private class TabWarmUp implements MessageQueue.IdleHandler {
+		final PagerAdapter adapter;
+		private int built = -1;
+		private boolean styled = false;
+
+		TabWarmUp(PagerAdapter adapter) {
+			this.adapter = adapter;
+		}
+
+		@Override
+		public boolean queueIdle() {
+			step();
+			return !styled;
+		}
+
+		/**
+		 * Builds the remaining tabs synchronously. Returns false if the adapter changed its count since
+		 * the warm-up started, in which case the prepared tabs can not be used.
+		 */
+		boolean finish() {
+			while (!styled) {
+				step();
+			}
+			return tabCount == adapter.getCount();
+		}
+
+		private void step() {
+			if (built < 0) {
+				getScreenDimensions();
+				beginTabs(adapter);
+				tabsContainer.setVisibility(INVISIBLE);
+				built = 0;
+			} else if (built < tabCount) {
+				buildTab(adapter, built++);
+			} else {
+				updateTabStyles();
+				loadTitles(adapter);
+				invalidateAccessibility();
+
+				// lay out the titles once so their text metrics are ready for the first real measure pass
+				int unspecified = MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED);
+				tabsContainer.measure(unspecified, unspecified);
+				styled = true;
+				tabsContainer.setVisibility(VISIBLE);
+				updateVisibleTabs();
+				invalidate();
+			}
+		}
+	}
+
 	private class PageListener implements OnPageChangeListener {
 		float prevOffset = 0;
 
 		@Override
 		public void onPageScrolled(int position, float positionOffset, int positionOffsetPixels) {
 
-			currentPosition = position;
-			currentPositionOffset = positionOffset;
+			boolean traced = beginTrace(TRACE_PAGE_SCROLLED);
+			try {
+				currentPosition = position;
+				currentPositionOffset = positionOffset;
 
-			scrollToChild(position, (int) (positionOffset * tabsContainer.getChildAt(position).getWidth()));
+				if (farJumpAnimator != null) {
+					// the strip animates the jump itself
+					if (delegatePageListener != null) {
+						delegatePageListener.onPageScrolled(position, positionOffset, positionOffsetPixels);
+					}
+					pageChangeDispatcher.onPageScrolled(position, positionOffset, positionOffsetPixels);
+					return;
+				}
 
-			invalidate();
+				boolean visible = isVisibleToUser();
+				if (visible) {
+					scrollToChild(position, (int) (positionOffset * tabsContainer.getChildAt(position).getWidth()));
 
-			if (delegatePageListener != null) {
-				delegatePageListener.onPageScrolled(position, positionOffset, positionOffsetPixels);
-			}
-			if (tintAnimator != null) {
-				float delta = positionOffset != 0 ? positionOffset - prevOffset : 0;
-				prevOffset = positionOffset;
-				if (delta > 0) {
-					if (icons.size() > 0) {
-						currentIcon = icons.get(position);
-						nextIcon = icons.get(position + 1);
-					}
-					if (textViews.size() > 0) {
-						currentText = textViews.get(position);
-						nextText = textViews.get(position + 1);
-					}
-					tintAnimator.setCurrentPlayTime((long) (positionOffset * animationPlayTime));
-					unTintAnimator.setCurrentPlayTime((long) (positionOffset * animationPlayTime));
-				} else if (delta < 0) {
-					if (icons.size() > 0) {
-						currentIcon = icons.get(position + 1);
-						nextIcon = icons.get(position);
+					invalidate();
+				} else {
+					requestCatchUp();
+				}
+
+				if (delegatePageListener != null) {
+					delegatePageListener.onPageScrolled(position, positionOffset, positionOffsetPixels);
+				}
+				pageChangeDispatcher.onPageScrolled(position, positionOffset, positionOffsetPixels);
+				if (!visible) {
+					// the tint is applied by the catch-up once the strip can be seen again
+					prevOffset = positionOffset;
+				} else if (qualityLevel >= QUALITY_SNAP_TINT) {
+					// the tint is snapped once the page settles
+				} else if (hasTintLayers()) {
+					applyCrossfade(position, positionOffset);
+				} else if (tintAnimator != null) {
+					float delta = positionOffset != 0 ? positionOffset - prevOffset : 0;
+					prevOffset = positionOffset;
+					if (delta > 0) {
+						currentIcon = tabRegistry.icon(position);
+						nextIcon = tabRegistry.icon(position + 1);
+						currentText = tabRegistry.title(position);
+						nextText = tabRegistry.title(position + 1);
+						tintAnimator.setCurrentPlayTime((long) (positionOffset * animationPlayTime));
+						unTintAnimator.setCurrentPlayTime((long) (positionOffset * animationPlayTime));
+					} else if (delta < 0) {
+						currentIcon = tabRegistry.icon(position + 1);
+						nextIcon = tabRegistry.icon(position);
+						currentText = tabRegistry.title(position + 1);
+						nextText = tabRegistry.title(position);
+						unTintAnimator.setCurrentPlayTime((long) ((1 - positionOffset) * animationPlayTime));
+						tintAnimator.setCurrentPlayTime((long) ((1 - positionOffset) * animationPlayTime));
 					}
-					if (textViews.size() > 0) {
-						currentText = textViews.get(position + 1);
-						nextText = textViews.get(position);
+					if (delta == 0) {
+						ImageView icon = tabRegistry.icon(pager.getCurrentItem());
+						if (icon != null) {
+							icon.setColorFilter(Color.WHITE);
+						}
+						TextView title = tabRegistry.title(pager.getCurrentItem());
+						if (title != null) {
+							title.setTextColor(Color.WHITE);
+						}
 					}
-					unTintAnimator.setCurrentPlayTime((long) ((1 - positionOffset) * animationPlayTime));
-					tintAnimator.setCurrentPlayTime((long) ((1 - positionOffset) * animationPlayTime));
-				}
-				if (delta == 0) {
-					icons.get(pager.getCurrentItem()).setColorFilter(Color.WHITE);
-					textViews.get(pager.getCurrentItem()).setTextColor(Color.WHITE);
 				}
+			} finally {
+				endTrace(traced);
 			}
-
 		}
 
 		@Override
 		public void onPageScrollStateChanged(int state) {
+			pageScrollState = state;
+			if (state == ViewPager.SCROLL_STATE_DRAGGING) {
+				cancelFarJump();
+			}
 			if (state == ViewPager.SCROLL_STATE_IDLE) {
-				scrollToChild(pager.getCurrentItem(), 0);
+				applyDeferredUpdates();
+			}
+			if (tileCache != null && state == ViewPager.SCROLL_STATE_IDLE) {
+				// render the tiles that went out of date while scrolling
+				invalidate();
+			}
+
+			if (state == ViewPager.SCROLL_STATE_IDLE && farJumpAnimator == null) {
+				if (isVisibleToUser()) {
+					scrollToChild(pager.getCurrentItem(), 0);
+				} else {
+					requestCatchUp();
+				}
+			}
+
+			if (qualityMonitor != null) {
+				if (state == ViewPager.SCROLL_STATE_IDLE) {
+					qualityMonitor.stop();
+					restoreQuality();
+				} else {
+					qualityMonitor.start();
+				}
 			}
 
 			if (delegatePageListener != null) {
 				delegatePageListener.onPageScrollStateChanged(state);
 			}
+			pageChangeDispatcher.onPageScrollStateChanged(state);
 		}
 
 		@Override
 		public void onPageSelected(int position) {
+			invalidateAccessibility();
+
 			if (delegatePageListener != null) {
 				delegatePageListener.onPageSelected(position);
 			}
+			pageChangeDispatcher.onPageSelected(position);
+		}
+
+	}
+
+	private class TabGestureListener extends GestureDetector.SimpleOnGestureListener {
+		private int downPosition = -1;
+
+		@Override
+		public boolean onDown(MotionEvent e) {
+			// a touch that stops a fling of the strip does not select a tab
+			downPosition = touchStoppedFling ? -1 : tabPositionAt(e);
+			return downPosition >= 0;
+		}
+
+		@Override
+		public void onShowPress(MotionEvent e) {
+			setPressedTab(downPosition);
+		}
+
+		@Override
+		public boolean onScroll(MotionEvent e1, MotionEvent e2, float distanceX, float distanceY) {
+			downPosition = -1;
+			setPressedTab(-1);
+			return false;
+		}
+
+		@Override
+		public boolean onSingleTapUp(MotionEvent e) {
+			int position = downPosition;
+			downPosition = -1;
+			if (position < 0 || position != tabPositionAt(e)) {
+				return false;
+			}
+
+			setPressedTab(position);
+			playSoundEffect(SoundEffectConstants.CLICK);
+			performTabClick(position);
+			return true;
+		}
+
+		@Override
+		public void onLongPress(MotionEvent e) {
+			int position = downPosition;
+			downPosition = -1;
+			if (position >= 0 && tabLongClickListener != null && tabLongClickListener.onTabLongClick(position)) {
+				performHapticFeedback(HapticFeedbackConstants.LONG_PRESS);
+			}
 		}
 
 	}
@@ -695,7 +2576,7 @@ public class PagerSlidingTabStrip extends HorizontalScrollView {
 
 	public void setShouldExpand(boolean shouldExpand) {
 		this.shouldExpand = shouldExpand;
-		requestLayout();
+		tabsContainer.setExpand(shouldExpand);
 	}
 
 	public boolean getShouldExpand() {
@@ -712,7 +2593,7 @@ public class PagerSlidingTabStrip extends HorizontalScrollView {
 
 	public void setTextSize(int textSizePx) {
 		this.tabTextSize = textSizePx;
-		updateTabStyles();
+		requestTabStyles();
 	}
 
 	public int getTextSize() {
@@ -721,12 +2602,12 @@ public class PagerSlidingTabStrip extends HorizontalScrollView {
 
 	public void setTextColor(int textColor) {
 		this.tabTextColor = textColor;
-		updateTabStyles();
+		requestTabStyles();
 	}
 
 	public void setTextColorResource(int resId) {
 		this.tabTextColor = getResources().getColor(resId);
-		updateTabStyles();
+		requestTabStyles();
 	}
 
 	public int getTextColor() {
@@ -736,11 +2617,15 @@ public class PagerSlidingTabStrip extends HorizontalScrollView {
 	public void setTypeface(Typeface typeface, int style) {
 		this.tabTypeface = typeface;
 		this.tabTypefaceStyle = style;
-		updateTabStyles();
+		requestTabStyles();
 	}
 
 	public void setTabBackground(int resId) {
 		this.tabBackgroundResId = resId;
+		if (tabBackground != null) {
+			tabBackground.setCallback(null);
+			tabBackground = null;
+		}
 	}
 
 	public int getTabBackground() {
@@ -749,7 +2634,7 @@ public class PagerSlidingTabStrip extends HorizontalScrollView {
 
 	public void setTabPaddingLeftRight(int paddingPx) {
 		this.tabPadding = paddingPx;
-		updateTabStyles();
+		requestTabStyles();
 	}
 
 	public int getTabPaddingLeftRight() {
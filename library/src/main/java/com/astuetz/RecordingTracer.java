@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2013 Andreas Stuetz <andreas.stuetz@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.astuetz;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Keeps every completed trace section in memory, with its tab count, nesting depth and duration.
+ * It has no Android dependencies, so it can be used to assert on the strip's work in JVM tests.
+ */
+public class RecordingTracer implements PagerSlidingTabStrip.Tracer {
+
+	public static final class Section {
+		public final String name;
+		public final int tabCount;
+		public final int depth;
+		public final long startNanos;
+		public final long durationNanos;
+
+		Section(String name, int tabCount, int depth, long startNanos, long durationNanos) {
+			this.name = name;
+			this.tabCount = tabCount;
+			this.depth = depth;
+			this.startNanos = startNanos;
+			this.durationNanos = durationNanos;
+		}
+
+		@Override
+		public String toString() {
+			return name + " tabs=" + tabCount + " " + durationNanos + "ns";
+		}
+	}
+
+	private static final class Open {
+		final String name;
+		final int tabCount;
+		final long startNanos;
+
+		Open(String name, int tabCount, long startNanos) {
+			this.name = name;
+			this.tabCount = tabCount;
+			this.startNanos = startNanos;
+		}
+	}
+
+	private final Deque<Open> open = new ArrayDeque<Open>();
+	private final List<Section> sections = new ArrayList<Section>();
+
+	@Override
+	public boolean isEnabled() {
+		return true;
+	}
+
+	@Override
+	public synchronized void beginSection(String name, int tabCount) {
+		open.push(new Open(name, tabCount, System.nanoTime()));
+	}
+
+	@Override
+	public synchronized void endSection() {
+		Open section = open.pop();
+		sections.add(new Section(section.name, section.tabCount, open.size(), section.startNanos,
+		                         System.nanoTime() - section.startNanos));
+	}
+
+	/**
+	 * Returns the completed sections in the order they ended.
+	 */
+	public synchronized List<Section> getSections() {
+		return Collections.unmodifiableList(new ArrayList<Section>(sections));
+	}
+
+	public synchronized int count(String name) {
+		int count = 0;
+		for (int i = 0; i < sections.size(); i++) {
+			if (sections.get(i).name.equals(name)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	public synchronized void clear() {
+		open.clear();
+		sections.clear();
+	}
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2013 Andreas Stuetz <andreas.stuetz@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.astuetz;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * A recorded sequence of page change events with their timestamps, as captured by
+ * {@link ScrollTraceRecorder}. Traces are written in a compact binary format, so recordings taken
+ * on devices can be checked in and replayed by the tests of the library.
+ */
+public class ScrollTrace {
+
+	public static final int EVENT_SCROLLED = 0;
+	public static final int EVENT_STATE_CHANGED = 1;
+	public static final int EVENT_SELECTED = 2;
+
+	private static final int MAGIC = 0x50535453; // "PSTS"
+	private static final int VERSION = 1;
+
+	private int size;
+	private byte[] types = new byte[64];
+	private long[] times = new long[64];
+	private int[] values = new int[64];
+	private float[] offsets = new float[64];
+	private int[] offsetPixels = new int[64];
+
+	/**
+	 * Returns the number of recorded events.
+	 */
+	public int size() {
+		return size;
+	}
+
+	public int getType(int index) {
+		return types[index];
+	}
+
+	/**
+	 * Returns the time of the event in nanoseconds, relative to the first event.
+	 */
+	public long getTimeNanos(int index) {
+		return times[index] - times[0];
+	}
+
+	/**
+	 * Returns the position of a scrolled or selected event, or the state of a state changed event.
+	 */
+	public int getValue(int index) {
+		return values[index];
+	}
+
+	public float getOffset(int index) {
+		return offsets[index];
+	}
+
+	public int getOffsetPixels(int index) {
+		return offsetPixels[index];
+	}
+
+	void add(int type, long timeNanos, int value, float offset, int pixels) {
+		if (size == types.length) {
+			int capacity = size * 2;
+			types = Arrays.copyOf(types, capacity);
+			times = Arrays.copyOf(times, capacity);
+			values = Arrays.copyOf(values, capacity);
+			offsets = Arrays.copyOf(offsets, capacity);
+			offsetPixels = Arrays.copyOf(offsetPixels, capacity);
+		}
+		types[size] = (byte) type;
+		times[size] = timeNanos;
+		values[size] = value;
+		offsets[size] = offset;
+		offsetPixels[size] = pixels;
+		size++;
+	}
+
+	void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Writes the trace. Timestamps are stored as microseconds since the previous event and integers as
+	 * variable length values, so a typical event takes five to eight bytes.
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		DataOutputStream data = new DataOutputStream(out);
+		data.writeInt(MAGIC);
+		data.writeByte(VERSION);
+		writeVarInt(data, size);
+
+		long previous = 0;
+		for (int i = 0; i < size; i++) {
+			long micros = (times[i] - times[0]) / 1000;
+			data.writeByte(types[i]);
+			writeVarInt(data, (int) (micros - previous));
+			previous = micros;
+
+			switch (types[i]) {
+				case EVENT_SCROLLED:
+					writeVarInt(data, values[i]);
+					data.writeFloat(offsets[i]);
+					writeVarInt(data, offsetPixels[i]);
+					break;
+				default:
+					writeVarInt(data, values[i]);
+					break;
+			}
+		}
+		data.flush();
+	}
+
+	public static ScrollTrace readFrom(InputStream in) throws IOException {
+		DataInputStream data = new DataInputStream(in);
+		if (data.readInt() != MAGIC) {
+			throw new IOException("Not a scroll trace");
+		}
+		int version = data.readUnsignedByte();
+		if (version != VERSION) {
+			throw new IOException("Unsupported scroll trace version " + version);
+		}
+
+		ScrollTrace trace = new ScrollTrace();
+		int count = readVarInt(data);
+		long time = 0;
+		for (int i = 0; i < count; i++) {
+			int type = data.readUnsignedByte();
+			time += readVarInt(data) * 1000L;
+
+			switch (type) {
+				case EVENT_SCROLLED:
+					int position = readVarInt(data);
+					float offset = data.readFloat();
+					trace.add(type, time, position, offset, readVarInt(data));
+					break;
+				case EVENT_STATE_CHANGED:
+				case EVENT_SELECTED:
+					trace.add(type, time, readVarInt(data), 0f, 0);
+					break;
+				default:
+					throw new IOException("Unknown scroll trace event " + type);
+			}
+		}
+		return trace;
+	}
+
+	// zigzag encoded so that negative values stay short as well
+	private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+		int bits = (value << 1) ^ (value >> 31);
+		while ((bits & ~0x7f) != 0) {
+			out.writeByte((bits & 0x7f) | 0x80);
+			bits >>>= 7;
+		}
+		out.writeByte(bits);
+	}
+
+	private static int readVarInt(DataInputStream in) throws IOException {
+		int bits = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			int b = in.readUnsignedByte();
+			bits |= (b & 0x7f) << shift;
+			if ((b & 0x80) == 0) {
+				return (bits >>> 1) ^ -(bits & 1);
+			}
+		}
+		throw new IOException("Malformed scroll trace");
+	}
+}
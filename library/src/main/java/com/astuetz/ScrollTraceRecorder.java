@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2013 Andreas Stuetz <andreas.stuetz@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.astuetz;
+
+import android.support.v4.view.ViewPager.OnPageChangeListener;
+
+/**
+ * Records the page change events of a pager into a {@link ScrollTrace}. Add it to the pager next to
+ * the strip while reproducing a gesture, then write the trace with {@link ScrollTrace#writeTo}.
+ */
+public class ScrollTraceRecorder implements OnPageChangeListener {
+
+	private final ScrollTrace trace = new ScrollTrace();
+	private boolean recording = true;
+
+	public void setRecording(boolean recording) {
+		this.recording = recording;
+	}
+
+	public boolean isRecording() {
+		return recording;
+	}
+
+	/**
+	 * Returns the trace recorded so far. It keeps growing while the recorder is recording.
+	 */
+	public ScrollTrace getTrace() {
+		return trace;
+	}
+
+	public void clear() {
+		trace.clear();
+	}
+
+	@Override
+	public void onPageScrolled(int position, float positionOffset, int positionOffsetPixels) {
+		if (recording) {
+			trace.add(ScrollTrace.EVENT_SCROLLED, System.nanoTime(), position, positionOffset, positionOffsetPixels);
+		}
+	}
+
+	@Override
+	public void onPageScrollStateChanged(int state) {
+		if (recording) {
+			trace.add(ScrollTrace.EVENT_STATE_CHANGED, System.nanoTime(), state, 0f, 0);
+		}
+	}
+
+	@Override
+	public void onPageSelected(int position) {
+		if (recording) {
+			trace.add(ScrollTrace.EVENT_SELECTED, System.nanoTime(), position, 0f, 0);
+		}
+	}
+}
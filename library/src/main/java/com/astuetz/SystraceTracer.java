@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2013 Andreas Stuetz <andreas.stuetz@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.astuetz;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.SystemClock;
+import android.os.Trace;
+
+import java.lang.reflect.Method;
+
+/**
+ * Emits the strip's trace sections through {@link Trace}, so they show up in systrace and Perfetto
+ * as e.g. {@code PSTS.onDraw tabs=12}. Does nothing before API 18.
+ */
+@TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+public class SystraceTracer implements PagerSlidingTabStrip.Tracer {
+
+	// Trace.TRACE_TAG_APP, the tag of Trace.beginSection()
+	private static final long TRACE_TAG_APP = 1L << 12;
+
+	// Trace.isEnabled() (API 29) or the hidden Trace.isTagEnabled(long), looked up once
+	private static final Method IS_ENABLED;
+	private static final Object[] IS_ENABLED_ARGS;
+
+	static {
+		Method method = null;
+		Object[] args = null;
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+			try {
+				method = Trace.class.getMethod("isEnabled");
+				args = new Object[0];
+			} catch (Exception e) {
+				try {
+					method = Trace.class.getMethod("isTagEnabled", long.class);
+					args = new Object[]{TRACE_TAG_APP};
+				} catch (Exception ignored) {
+					method = null;
+				}
+			}
+		}
+		IS_ENABLED = method;
+		IS_ENABLED_ARGS = args;
+	}
+
+	// a trace that starts within a frame is picked up with the next one
+	private static final long CHECK_INTERVAL_MS = 16L;
+
+	private final StringBuilder name = new StringBuilder(64);
+	private boolean enabled = false;
+	private long lastCheckMillis = -CHECK_INTERVAL_MS;
+
+	@Override
+	public boolean isEnabled() {
+		if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN_MR2) {
+			return false;
+		}
+		if (IS_ENABLED == null) {
+			// no way to ask, beginSection() then emits the constant section names
+			return true;
+		}
+		// the sections of one frame share a single reflective call
+		long now = SystemClock.uptimeMillis();
+		if (now - lastCheckMillis >= CHECK_INTERVAL_MS) {
+			lastCheckMillis = now;
+			try {
+				enabled = (Boolean) IS_ENABLED.invoke(null, IS_ENABLED_ARGS);
+			} catch (Exception e) {
+				enabled = false;
+			}
+		}
+		return enabled;
+	}
+
+	@Override
+	public void beginSection(String section, int tabCount) {
+		if (IS_ENABLED == null) {
+			Trace.beginSection(section);
+			return;
+		}
+		// only reached while a trace is being captured
+		name.setLength(0);
+		name.append(section).append(" tabs=").append(tabCount);
+		Trace.beginSection(name.toString());
+	}
+
+	@Override
+	public void endSection() {
+		Trace.endSection();
+	}
+}
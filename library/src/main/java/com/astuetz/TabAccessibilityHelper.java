@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2013 Andreas Stuetz <andreas.stuetz@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.astuetz;
+
+import android.graphics.Rect;
+import android.os.Bundle;
+import android.support.v4.view.accessibility.AccessibilityNodeInfoCompat;
+import android.support.v4.widget.ExploreByTouchHelper;
+import android.view.accessibility.AccessibilityEvent;
+import android.widget.TextView;
+
+import java.util.List;
+
+/**
+ * Exposes every tab as a virtual accessibility node, built from the tab positions and titles. It does
+ * not depend on the tabs being child views, and is only created once an accessibility service asks
+ * for the strip's nodes.
+ */
+class TabAccessibilityHelper extends ExploreByTouchHelper {
+
+	private final PagerSlidingTabStrip strip;
+	private final Rect bounds = new Rect();
+
+	TabAccessibilityHelper(PagerSlidingTabStrip strip) {
+		super(strip);
+		this.strip = strip;
+	}
+
+	@Override
+	protected int getVirtualViewAt(float x, float y) {
+		int position = strip.tabPositionAt(x);
+		return position >= 0 ? position : INVALID_ID;
+	}
+
+	@Override
+	protected void getVisibleVirtualViews(List<Integer> virtualViewIds) {
+		for (int i = 0; i < strip.getTabCount(); i++) {
+			virtualViewIds.add(i);
+		}
+	}
+
+	@Override
+	protected void onPopulateEventForVirtualView(int virtualViewId, AccessibilityEvent event) {
+		event.setContentDescription(strip.getTabTitle(virtualViewId));
+	}
+
+	@Override
+	protected void onPopulateNodeForVirtualView(int virtualViewId, AccessibilityNodeInfoCompat node) {
+		node.setClassName(TextView.class.getName());
+		node.setContentDescription(strip.getTabTitle(virtualViewId));
+
+		strip.getTabBounds(virtualViewId, bounds);
+		if (bounds.isEmpty()) {
+			// tabs that are not laid out yet still need bounds
+			bounds.set(0, 0, 1, 1);
+		}
+		node.setBoundsInParent(bounds);
+
+		node.setFocusable(true);
+		node.setClickable(true);
+		node.addAction(AccessibilityNodeInfoCompat.ACTION_CLICK);
+		node.addAction(AccessibilityNodeInfoCompat.ACTION_SELECT);
+		node.setSelected(strip.isTabSelected(virtualViewId));
+	}
+
+	@Override
+	protected boolean onPerformActionForVirtualView(int virtualViewId, int action, Bundle arguments) {
+		if (virtualViewId >= strip.getTabCount()) {
+			return false;
+		}
+
+		switch (action) {
+			case AccessibilityNodeInfoCompat.ACTION_CLICK:
+				strip.performTabClick(virtualViewId);
+				sendEventForVirtualView(virtualViewId, AccessibilityEvent.TYPE_VIEW_CLICKED);
+				return true;
+			case AccessibilityNodeInfoCompat.ACTION_SELECT:
+				// unlike a click, selecting the selected tab again does not count as a reselection
+				if (!strip.isTabSelected(virtualViewId)) {
+					strip.performTabClick(virtualViewId);
+				}
+				sendEventForVirtualView(virtualViewId, AccessibilityEvent.TYPE_VIEW_SELECTED);
+				return true;
+			default:
+				return false;
+		}
+	}
+}
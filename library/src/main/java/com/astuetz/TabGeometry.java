@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2013 Andreas Stuetz <andreas.stuetz@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.astuetz;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * Horizontal bounds of every tab, in tab container coordinates. Tabs are laid out left to right
+ * without overlap, so lookups by x coordinate can use a binary search.
+ */
+class TabGeometry {
+
+	private int[] lefts = new int[0];
+	private int[] rights = new int[0];
+	private int count = 0;
+
+	/**
+	 * Records the current bounds of the tabs. Returns true if any tab moved or changed its width, or
+	 * tabs were added or removed.
+	 */
+	boolean update(ViewGroup container) {
+		int childCount = container.getChildCount();
+		boolean changed = childCount != count;
+		ensureCapacity(childCount);
+		for (int i = 0; i < childCount; i++) {
+			View child = container.getChildAt(i);
+			int left = child.getLeft();
+			int right = child.getRight();
+			if (left != lefts[i] || right != rights[i]) {
+				lefts[i] = left;
+				rights[i] = right;
+				changed = true;
+			}
+		}
+		count = childCount;
+		return changed;
+	}
+
+	void clear() {
+		count = 0;
+	}
+
+	int getCount() {
+		return count;
+	}
+
+	int getLeft(int position) {
+		return lefts[position];
+	}
+
+	int getRight(int position) {
+		return rights[position];
+	}
+
+	/**
+	 * Returns the position of the tab containing {@code x}, or -1 if {@code x} is outside every tab.
+	 */
+	int indexAt(int x) {
+		int low = 0;
+		int high = count - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (x < lefts[mid]) {
+				high = mid - 1;
+			} else if (x >= rights[mid]) {
+				low = mid + 1;
+			} else {
+				return mid;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the first tab ending after {@code x}, or {@link #getCount()} if there is none.
+	 */
+	int firstEndingAfter(int x) {
+		int low = 0;
+		int high = count;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (rights[mid] > x) {
+				high = mid;
+			} else {
+				low = mid + 1;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Returns the last tab starting before {@code x}, or -1 if there is none.
+	 */
+	int lastStartingBefore(int x) {
+		int low = 0;
+		int high = count;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (lefts[mid] < x) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low - 1;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (lefts.length < capacity) {
+			lefts = new int[capacity];
+			rights = new int[capacity];
+		}
+	}
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2013 Andreas Stuetz <andreas.stuetz@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.astuetz;
+
+import android.graphics.Bitmap;
+import android.view.View;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import java.util.Arrays;
+
+/**
+ * Parts of every tab, indexed by position. The arrays are reused across rebuilds and only reallocated
+ * when the tab count outgrows them or shrinks far below their capacity, so the registry never holds
+ * views of tabs that are no longer attached.
+ */
+class TabRegistry {
+
+	private static final int MIN_CAPACITY = 8;
+
+	private View[] tabs = new View[0];
+	private ImageView[] icons = new ImageView[0];
+	private TextView[] titles = new TextView[0];
+	private TextView[] counters = new TextView[0];
+	private Bitmap[] iconBitmaps = new Bitmap[0];
+	private ImageView[] activeIcons = new ImageView[0];
+	private TextView[] activeTitles = new TextView[0];
+	private int size = 0;
+
+	void reset(int count) {
+		int capacity = tabs.length;
+		if (capacity < count || capacity > Math.max(MIN_CAPACITY, count * 2)) {
+			capacity = Math.max(MIN_CAPACITY, count);
+			tabs = new View[capacity];
+			icons = new ImageView[capacity];
+			titles = new TextView[capacity];
+			counters = new TextView[capacity];
+			iconBitmaps = new Bitmap[capacity];
+			activeIcons = new ImageView[capacity];
+			activeTitles = new TextView[capacity];
+		} else {
+			Arrays.fill(tabs, 0, size, null);
+			Arrays.fill(icons, 0, size, null);
+			Arrays.fill(titles, 0, size, null);
+			Arrays.fill(counters, 0, size, null);
+			Arrays.fill(iconBitmaps, 0, size, null);
+			Arrays.fill(activeIcons, 0, size, null);
+			Arrays.fill(activeTitles, 0, size, null);
+		}
+		size = count;
+	}
+
+	void put(int position, View tab, ImageView icon, TextView title, TextView counter) {
+		tabs[position] = tab;
+		icons[position] = icon;
+		titles[position] = title;
+		counters[position] = counter;
+	}
+
+	/**
+	 * Records a bitmap that was decoded for the icon at {@code position} and is owned by the strip.
+	 */
+	void putIconBitmap(int position, Bitmap bitmap) {
+		iconBitmaps[position] = bitmap;
+	}
+
+	/**
+	 * Records the pre-tinted active renderings that are cross-faded with the icon and title of a tab.
+	 */
+	void putActiveLayers(int position, ImageView activeIcon, TextView activeTitle) {
+		activeIcons[position] = activeIcon;
+		activeTitles[position] = activeTitle;
+	}
+
+	int size() {
+		return size;
+	}
+
+	View tab(int position) {
+		return position >= 0 && position < size ? tabs[position] : null;
+	}
+
+	ImageView icon(int position) {
+		return position >= 0 && position < size ? icons[position] : null;
+	}
+
+	TextView title(int position) {
+		return position >= 0 && position < size ? titles[position] : null;
+	}
+
+	TextView counter(int position) {
+		return position >= 0 && position < size ? counters[position] : null;
+	}
+
+	ImageView activeIcon(int position) {
+		return position >= 0 && position < size ? activeIcons[position] : null;
+	}
+
+	TextView activeTitle(int position) {
+		return position >= 0 && position < size ? activeTitles[position] : null;
+	}
+
+	Bitmap iconBitmap(int position) {
+		return position >= 0 && position < size ? iconBitmaps[position] : null;
+	}
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2013 Andreas Stuetz <andreas.stuetz@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.astuetz;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.util.AttributeSet;
+import android.util.DisplayMetrics;
+import android.util.TypedValue;
+
+import com.astuetz.pagerslidingtabstrip.R;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Resolved attribute values of a strip, in px and ARGB. Instances are cached per theme, keyed by the
+ * style resource, the display density, the resource qualifiers of the configuration and the strip
+ * attributes set inline on the view, so strips inflated with the same theme and attributes share one
+ * snapshot.
+ */
+final class TabStripStyle {
+
+	// @formatter:off
+	private static final int[] ATTRS = new int[]{
+			android.R.attr.textSize,
+			android.R.attr.textColor
+	};
+	// @formatter:on
+
+	private static final Map<Resources.Theme, Map<String, TabStripStyle>> CACHE =
+			new WeakHashMap<Resources.Theme, Map<String, TabStripStyle>>();
+
+	final int indicatorColor;
+	final int underlineColor;
+	final int dividerColor;
+
+	final boolean shouldExpand;
+	final boolean textAllCaps;
+
+	final int scrollOffset;
+	final int indicatorHeight;
+	final int underlineHeight;
+	final int dividerPadding;
+	final int tabPadding;
+	final int dividerWidth;
+	final int iconSize;
+
+	final int tabTextSize;
+	final int tabTextColor;
+
+	final int tabBackgroundResId;
+
+	static TabStripStyle obtain(Context context, AttributeSet attrs) {
+		Resources.Theme theme = context.getTheme();
+		Resources resources = context.getResources();
+		String key = keyOf(attrs, resources.getDisplayMetrics(), resources.getConfiguration());
+
+		synchronized (CACHE) {
+			Map<String, TabStripStyle> styles = CACHE.get(theme);
+			if (styles == null) {
+				styles = new HashMap<String, TabStripStyle>();
+				CACHE.put(theme, styles);
+			}
+
+			TabStripStyle style = styles.get(key);
+			if (style == null) {
+				style = new TabStripStyle(context, attrs);
+				styles.put(key, style);
+			}
+			return style;
+		}
+	}
+
+	private static String keyOf(AttributeSet attrs, DisplayMetrics dm, Configuration config) {
+		StringBuilder key = new StringBuilder(64);
+		key.append(dm.density).append('/').append(dm.scaledDensity);
+
+		// the same theme resolves to other values after a rotation, a night mode switch or a new locale,
+		// and it may even be the same theme object if the activity handles the change itself
+		key.append('/').append(config.orientation)
+				.append('/').append(config.uiMode)
+				.append('/').append(config.screenLayout)
+				.append('/').append(config.smallestScreenWidthDp)
+				.append('/').append(config.screenWidthDp)
+				.append('/').append(config.screenHeightDp)
+				.append('/').append(config.locale);
+		if (attrs == null) {
+			return key.toString();
+		}
+
+		key.append('/').append(attrs.getStyleAttribute());
+
+		// only attributes read below can change the result, everything else on the view is ignored
+		for (int i = 0, count = attrs.getAttributeCount(); i < count; i++) {
+			int name = attrs.getAttributeNameResource(i);
+			if (contains(ATTRS, name) || contains(R.styleable.PagerSlidingTabStrip, name)) {
+				key.append('/').append(name).append('=').append(attrs.getAttributeValue(i));
+			}
+		}
+		return key.toString();
+	}
+
+	private static boolean contains(int[] ids, int id) {
+		for (int i = 0; i < ids.length; i++) {
+			if (ids[i] == id) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private TabStripStyle(Context context, AttributeSet attrs) {
+		DisplayMetrics dm = context.getResources().getDisplayMetrics();
+
+		int scrollOffset = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 52, dm);
+		int indicatorHeight = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 8, dm);
+		int underlineHeight = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 2, dm);
+		int dividerPadding = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 12, dm);
+		int tabPadding = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 24, dm);
+		dividerWidth = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 1, dm);
+		iconSize = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 24, dm);
+		int tabTextSize = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 12, dm);
+
+		// get system attrs (android:textSize and android:textColor)
+
+		TypedArray a = context.obtainStyledAttributes(attrs, ATTRS);
+
+		this.tabTextSize = a.getDimensionPixelSize(0, tabTextSize);
+		//noinspection ResourceType
+		tabTextColor = a.getColor(1, 0xFF666666);
+
+		a.recycle();
+
+		// get custom attrs
+
+		a = context.obtainStyledAttributes(attrs, R.styleable.PagerSlidingTabStrip);
+
+		indicatorColor = a.getColor(R.styleable.PagerSlidingTabStrip_pstsIndicatorColor, 0xFF666666);
+		underlineColor = a.getColor(R.styleable.PagerSlidingTabStrip_pstsUnderlineColor, 0x1A000000);
+		dividerColor = a.getColor(R.styleable.PagerSlidingTabStrip_pstsDividerColor, 0x1A000000);
+		this.indicatorHeight = a.getDimensionPixelSize(R.styleable.PagerSlidingTabStrip_pstsIndicatorHeight, indicatorHeight);
+		this.underlineHeight = a.getDimensionPixelSize(R.styleable.PagerSlidingTabStrip_pstsUnderlineHeight, underlineHeight);
+		this.dividerPadding = a.getDimensionPixelSize(R.styleable.PagerSlidingTabStrip_pstsDividerPadding, dividerPadding);
+		this.tabPadding = a.getDimensionPixelSize(R.styleable.PagerSlidingTabStrip_pstsTabPaddingLeftRight, tabPadding);
+		tabBackgroundResId = a.getResourceId(R.styleable.PagerSlidingTabStrip_pstsTabBackground, R.drawable.background_tab);
+		shouldExpand = a.getBoolean(R.styleable.PagerSlidingTabStrip_pstsShouldExpand, false);
+		this.scrollOffset = a.getDimensionPixelSize(R.styleable.PagerSlidingTabStrip_pstsScrollOffset, scrollOffset);
+		textAllCaps = a.getBoolean(R.styleable.PagerSlidingTabStrip_pstsTextAllCaps, true);
+
+		a.recycle();
+	}
+}
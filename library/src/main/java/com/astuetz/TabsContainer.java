@@ -0,0 +1,233 @@
+/*
+ * Copyright (C) 2013 Andreas Stuetz <andreas.stuetz@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.astuetz;
+
+import android.content.Context;
+import android.os.Build;
+import android.support.v4.view.ViewCompat;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * Lays out the tabs in a single row with one measure pass per tab. Expanded and fixed width tabs get
+ * their share of the width computed directly instead of being measured a second time like weighted
+ * children of a LinearLayout. The natural width of every tab is kept until the tab requests a new
+ * layout, which happens when its title or style changes.
+ */
+class TabsContainer extends ViewGroup {
+
+	private boolean expand = false;
+	private int fitWidth = 0;
+
+	private int[] naturalWidths = new int[0];
+	private boolean[] naturalValid = new boolean[0];
+	private boolean naturalDirty = false;
+	private boolean hideTabsFromAccessibility = false;
+	private int lastHeightSpec = -1;
+
+	private int[] widths = new int[0];
+	private int childHeightSpec;
+
+	TabsContainer(Context context) {
+		super(context);
+
+		setOnHierarchyChangeListener(new OnHierarchyChangeListener() {
+			// positions shift when a tab is added or removed in the middle, the widths are dropped once
+			// in the next measure pass instead of on every change of a rebuild
+
+			@Override
+			public void onChildViewAdded(View parent, View child) {
+				naturalDirty = true;
+				if (hideTabsFromAccessibility && Build.VERSION.SDK_INT < Build.VERSION_CODES.KITKAT) {
+					hideFromAccessibility(child);
+				}
+			}
+
+			@Override
+			public void onChildViewRemoved(View parent, View child) {
+				naturalDirty = true;
+			}
+		});
+	}
+
+	/**
+	 * Gives every tab an equal share of the width whenever the tabs fit into it.
+	 */
+	void setExpand(boolean expand) {
+		if (this.expand != expand) {
+			this.expand = expand;
+			requestLayout();
+		}
+	}
+
+	/**
+	 * Gives every tab an equal share of {@code fitWidth}, whatever its content. Zero turns it off.
+	 */
+	void setFitWidth(int fitWidth) {
+		if (this.fitWidth != fitWidth) {
+			this.fitWidth = fitWidth;
+			requestLayout();
+		}
+	}
+
+	/**
+	 * Keeps the tabs out of the accessibility tree, for a strip that exposes them as virtual nodes.
+	 */
+	void hideTabsFromAccessibility() {
+		if (hideTabsFromAccessibility) {
+			return;
+		}
+		hideTabsFromAccessibility = true;
+
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+			ViewCompat.setImportantForAccessibility(this, ViewCompat.IMPORTANT_FOR_ACCESSIBILITY_NO_HIDE_DESCENDANTS);
+		} else {
+			// NO_HIDE_DESCENDANTS is new in API 19, before that every view of a tab has to opt out itself
+			hideFromAccessibility(this);
+		}
+	}
+
+	private static void hideFromAccessibility(View view) {
+		ViewCompat.setImportantForAccessibility(view, ViewCompat.IMPORTANT_FOR_ACCESSIBILITY_NO);
+		if (view instanceof ViewGroup) {
+			ViewGroup group = (ViewGroup) view;
+			for (int i = 0; i < group.getChildCount(); i++) {
+				hideFromAccessibility(group.getChildAt(i));
+			}
+		}
+	}
+
+	@Override
+	protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+		final int count = getChildCount();
+		ensureCapacity(count);
+
+		final int horizontalPadding = getPaddingLeft() + getPaddingRight();
+		final int verticalPadding = getPaddingTop() + getPaddingBottom();
+		childHeightSpec = getChildMeasureSpec(heightMeasureSpec, verticalPadding, LayoutParams.MATCH_PARENT);
+
+		boolean heightChanged = childHeightSpec != lastHeightSpec;
+		if (heightChanged) {
+			lastHeightSpec = childHeightSpec;
+			naturalDirty = true;
+		}
+		if (naturalDirty) {
+			naturalDirty = false;
+			invalidateNaturalWidths();
+		}
+
+		int widthMode = MeasureSpec.getMode(widthMeasureSpec);
+		int available = MeasureSpec.getSize(widthMeasureSpec) - horizontalPadding;
+
+		int total = 0;
+		int maxHeight = 0;
+		if (count > 0 && fitWidth > 0) {
+			total = share(fitWidth, count);
+			maxHeight = measureShares(count, heightChanged);
+		} else if (count > 0 && expand && widthMode == MeasureSpec.EXACTLY) {
+			// the scroll view only measures exactly when the tabs fit, so this is a plain split
+			total = share(Math.max(available, 0), count);
+			maxHeight = measureShares(count, heightChanged);
+		} else {
+			for (int i = 0; i < count; i++) {
+				View child = getChildAt(i);
+				if (child.getVisibility() == GONE) {
+					widths[i] = 0;
+					continue;
+				}
+				if (!naturalValid[i] || child.isLayoutRequested()) {
+					child.measure(MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED), childHeightSpec);
+					naturalWidths[i] = child.getMeasuredWidth();
+					naturalValid[i] = true;
+				}
+				widths[i] = naturalWidths[i];
+				total += widths[i];
+				maxHeight = Math.max(maxHeight, child.getMeasuredHeight());
+			}
+		}
+
+		setMeasuredDimension(resolveSize(total + horizontalPadding, widthMeasureSpec),
+		                     resolveSize(maxHeight + verticalPadding, heightMeasureSpec));
+	}
+
+	private int share(int width, int count) {
+		int share = width / count;
+		int remainder = width % count;
+		for (int i = 0; i < count; i++) {
+			widths[i] = getChildAt(i).getVisibility() == GONE ? 0 : share + (i < remainder ? 1 : 0);
+		}
+		return width;
+	}
+
+	/**
+	 * Measures every tab at its share, unless it already has that size and nothing changed inside.
+	 */
+	private int measureShares(int count, boolean force) {
+		int maxHeight = 0;
+		for (int i = 0; i < count; i++) {
+			View child = getChildAt(i);
+			if (child.getVisibility() == GONE) {
+				continue;
+			}
+			if (force || child.isLayoutRequested() || child.getMeasuredWidth() != widths[i]) {
+				child.measure(MeasureSpec.makeMeasureSpec(widths[i], MeasureSpec.EXACTLY), childHeightSpec);
+			}
+			maxHeight = Math.max(maxHeight, child.getMeasuredHeight());
+		}
+		return maxHeight;
+	}
+
+	@Override
+	protected void onLayout(boolean changed, int l, int t, int r, int b) {
+		final int count = getChildCount();
+		final int top = getPaddingTop();
+
+		int left = getPaddingLeft();
+		for (int i = 0; i < count; i++) {
+			View child = getChildAt(i);
+			if (child.getVisibility() == GONE) {
+				continue;
+			}
+			int width = widths[i];
+			if (child.getMeasuredWidth() != width) {
+				// the tab still has the size of a measure pass the scroll view did not keep
+				child.measure(MeasureSpec.makeMeasureSpec(width, MeasureSpec.EXACTLY), childHeightSpec);
+			}
+			child.layout(left, top, left + width, top + child.getMeasuredHeight());
+			left += width;
+		}
+	}
+
+	private void invalidateNaturalWidths() {
+		for (int i = 0; i < naturalValid.length; i++) {
+			naturalValid[i] = false;
+		}
+	}
+
+	private void ensureCapacity(int count) {
+		if (widths.length < count) {
+			widths = new int[count];
+			naturalWidths = new int[count];
+			naturalValid = new boolean[count];
+		}
+	}
+
+	@Override
+	public boolean shouldDelayChildPressedState() {
+		return false;
+	}
+}
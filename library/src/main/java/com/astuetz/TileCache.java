@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2013 Andreas Stuetz <andreas.stuetz@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.astuetz;
+
+import android.graphics.Bitmap;
+import android.util.LruCache;
+
+/**
+ * Rasterized slices of the tab row, each {@link #TILE_WIDTH} pixels wide, with the least recently
+ * drawn tiles evicted once the byte budget is used up. Evicted bitmaps are reused for the next tile.
+ */
+class TileCache {
+
+	static final int TILE_WIDTH = 512;
+
+	// the tabs left out of a tile because they were drawn live when it was rendered
+	static final int MAX_EXCLUDED = 5;
+
+	static final class Tile {
+		final Bitmap bitmap;
+		boolean dirty = true;
+		int firstTab = -1;
+		int lastTab = -1;
+		final int[] excluded = new int[MAX_EXCLUDED];
+		int excludedCount = 0;
+
+		Tile(Bitmap bitmap) {
+			this.bitmap = bitmap;
+		}
+
+		boolean excludes(int position) {
+			for (int i = 0; i < excludedCount; i++) {
+				if (excluded[i] == position) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		boolean contains(int position) {
+			return position >= firstTab && position <= lastTab;
+		}
+	}
+
+	private final int height;
+	private final LruCache<Integer, Tile> tiles;
+	private Bitmap spare;
+
+	TileCache(int height, int maxTiles) {
+		this.height = height;
+		final int tileBytes = TILE_WIDTH * height * 4;
+		tiles = new LruCache<Integer, Tile>(maxTiles * tileBytes) {
+			@Override
+			protected int sizeOf(Integer key, Tile tile) {
+				return tileBytes;
+			}
+
+			@Override
+			protected void entryRemoved(boolean evicted, Integer key, Tile oldTile, Tile newTile) {
+				if (spare == null) {
+					spare = oldTile.bitmap;
+				} else {
+					oldTile.bitmap.recycle();
+				}
+			}
+		};
+	}
+
+	int getHeight() {
+		return height;
+	}
+
+	Tile get(int index) {
+		return tiles.get(index);
+	}
+
+	/**
+	 * Returns the tile at {@code index}, creating an empty one if it is not cached.
+	 */
+	Tile obtain(int index) {
+		Tile tile = tiles.get(index);
+		if (tile == null) {
+			Bitmap bitmap = spare;
+			spare = null;
+			if (bitmap == null) {
+				bitmap = Bitmap.createBitmap(TILE_WIDTH, height, Bitmap.Config.ARGB_8888);
+			}
+			tile = new Tile(bitmap);
+			tiles.put(index, tile);
+		}
+		return tile;
+	}
+
+	/**
+	 * Marks the tiles covering {@code left} to {@code right} for rendering again.
+	 */
+	void invalidate(int left, int right) {
+		for (int i = Math.max(left, 0) / TILE_WIDTH; i <= Math.max(right - 1, 0) / TILE_WIDTH; i++) {
+			Tile tile = tiles.get(i);
+			if (tile != null) {
+				tile.dirty = true;
+			}
+		}
+	}
+
+	void invalidateAll() {
+		for (Tile tile : tiles.snapshot().values()) {
+			tile.dirty = true;
+		}
+	}
+
+	void release() {
+		tiles.evictAll();
+		if (spare != null) {
+			spare.recycle();
+			spare = null;
+		}
+	}
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2013 Andreas Stuetz <andreas.stuetz@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.astuetz;
+
+import android.os.SystemClock;
+import android.view.View;
+
+import com.astuetz.PagerSlidingTabStrip.OnVisibleTabsChangedListener;
+
+/**
+ * Reports which tabs are inside the strip's viewport. Scroll changes are coalesced so the listener
+ * is called at most once per {@link #DEBOUNCE_MS} while the strip moves, plus once after it stops.
+ */
+class VisibleTabsTracker implements Runnable {
+
+	static final long DEBOUNCE_MS = 100L;
+
+	private final View host;
+	private final TabGeometry geometry;
+
+	private OnVisibleTabsChangedListener listener;
+	private int lookAhead = 0;
+
+	private int viewportLeft = 0;
+	private int viewportRight = 0;
+	private long lastScrollTime = 0L;
+	private float velocity = 0f;
+	private boolean scheduled = false;
+
+	private int reportedFirst = -1;
+	private int reportedLast = -1;
+	private boolean reportedMoving = false;
+
+	VisibleTabsTracker(View host, TabGeometry geometry) {
+		this.host = host;
+		this.geometry = geometry;
+	}
+
+	void setListener(OnVisibleTabsChangedListener listener) {
+		this.listener = listener;
+		reportedFirst = -1;
+		reportedLast = -1;
+		reportedMoving = false;
+		if (listener == null) {
+			cancel();
+		} else {
+			schedule();
+		}
+	}
+
+	void setLookAhead(int lookAhead) {
+		this.lookAhead = Math.max(0, lookAhead);
+	}
+
+	int getLookAhead() {
+		return lookAhead;
+	}
+
+	void onViewportChanged(int left, int right) {
+		long now = SystemClock.uptimeMillis();
+		if (left != viewportLeft && lastScrollTime != 0L && now > lastScrollTime) {
+			velocity = (left - viewportLeft) * 1000f / (now - lastScrollTime);
+		}
+		lastScrollTime = now;
+		viewportLeft = left;
+		viewportRight = right;
+		schedule();
+	}
+
+	void cancel() {
+		if (scheduled) {
+			host.removeCallbacks(this);
+			scheduled = false;
+		}
+	}
+
+	private void schedule() {
+		schedule(DEBOUNCE_MS);
+	}
+
+	private void schedule(long delay) {
+		if (listener != null && !scheduled) {
+			scheduled = true;
+			host.postDelayed(this, delay);
+		}
+	}
+
+	@Override
+	public void run() {
+		scheduled = false;
+
+		int count = geometry.getCount();
+		if (listener == null || count == 0) {
+			return;
+		}
+
+		long sinceScroll = SystemClock.uptimeMillis() - lastScrollTime;
+		if (sinceScroll >= DEBOUNCE_MS) {
+			velocity = 0f;
+		} else {
+			// the strip may have stopped with this event, check again once it has been still long enough
+			schedule(DEBOUNCE_MS - sinceScroll);
+		}
+
+		int first = geometry.firstEndingAfter(viewportLeft);
+		int last = geometry.lastStartingBefore(viewportRight);
+		if (first > last) {
+			return;
+		}
+
+		// extend the range towards the direction the strip is moving in
+		if (velocity > 0f) {
+			last = Math.min(count - 1, last + lookAhead);
+		} else if (velocity < 0f) {
+			first = Math.max(0, first - lookAhead);
+		}
+
+		boolean moving = velocity != 0f;
+		if (first != reportedFirst || last != reportedLast || moving != reportedMoving) {
+			reportedFirst = first;
+			reportedLast = last;
+			reportedMoving = moving;
+			listener.onVisibleTabsChanged(first, last, velocity);
+		}
+	}
+}
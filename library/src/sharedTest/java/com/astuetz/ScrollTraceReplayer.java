@@ -0,0 +1,243 @@
+/*
+ * Copyright (C) 2013 Andreas Stuetz <andreas.stuetz@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.astuetz;
+
+import android.os.Debug;
+import android.support.v4.view.ViewPager;
+import android.support.v4.view.ViewPager.OnPageChangeListener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Feeds a {@link ScrollTrace} into a strip the way its pager would, and measures the cost of every
+ * event. The strip must already be bound to a pager with {@link PagerSlidingTabStrip#setViewPager}.
+ * The pager follows the recorded selections, so the strip reads the same current item it did on the
+ * device, but the pager's own work is not part of the measurement.
+ * <p/>
+ * Both the clock and the meter can be replaced, so the same recording runs as an instrumented test
+ * with {@link DebugMeter} or as a Robolectric test with {@code JvmMeter}. Shared by both test source
+ * sets, it is not part of the library.
+ */
+public class ScrollTraceReplayer {
+
+	/**
+	 * Moves time forward before each event, so frame callbacks and animations scheduled by the strip
+	 * run as they would between the recorded events.
+	 */
+	public interface FrameClock {
+		void advanceTo(long timeNanos);
+	}
+
+	public interface FrameListener {
+		void doFrame(long frameTimeNanos);
+	}
+
+	/**
+	 * A clock that only moves when the replay advances it, and calls its listeners once for every frame
+	 * boundary crossed on the way. Runs in recorded time rather than wall time, so a replay takes the
+	 * same frames on every run. Listeners can e.g. run the looper of a JVM test or draw the strip.
+	 */
+	public static class FakeFrameClock implements FrameClock {
+		public static final long FRAME_INTERVAL_NANOS = 1000000000L / 60;
+
+		private final long frameIntervalNanos;
+		private final List<FrameListener> listeners = new ArrayList<>();
+		private long timeNanos = -1L;
+		private long nextFrameNanos;
+
+		public FakeFrameClock() {
+			this(FRAME_INTERVAL_NANOS);
+		}
+
+		public FakeFrameClock(long frameIntervalNanos) {
+			this.frameIntervalNanos = frameIntervalNanos;
+		}
+
+		public void addFrameListener(FrameListener listener) {
+			listeners.add(listener);
+		}
+
+		public void removeFrameListener(FrameListener listener) {
+			listeners.remove(listener);
+		}
+
+		/**
+		 * Returns the time the clock was last advanced to, or -1 before the first event.
+		 */
+		public long getTimeNanos() {
+			return timeNanos;
+		}
+
+		@Override
+		public void advanceTo(long timeNanos) {
+			if (this.timeNanos < 0L) {
+				// the first event starts the first frame
+				nextFrameNanos = timeNanos;
+			}
+			while (nextFrameNanos <= timeNanos) {
+				this.timeNanos = nextFrameNanos;
+				for (int i = 0; i < listeners.size(); i++) {
+					listeners.get(i).doFrame(nextFrameNanos);
+				}
+				nextFrameNanos += frameIntervalNanos;
+			}
+			this.timeNanos = timeNanos;
+		}
+	}
+
+	/**
+	 * Reports counters of the replaying thread. Only differences between two reads are used, and only
+	 * between {@link #start()} and {@link #stop()}.
+	 */
+	public interface Meter {
+		void start();
+
+		long cpuTimeNanos();
+
+		/**
+		 * Returns the allocations so far, in the unit of the meter: objects on a device, bytes on the JVM.
+		 */
+		long allocations();
+
+		void stop();
+	}
+
+	/**
+	 * Measures with {@link Debug}. Allocation counting is process wide state, so it is only running
+	 * between {@link #start()} and {@link #stop()}.
+	 */
+	public static class DebugMeter implements Meter {
+
+		@Override
+		@SuppressWarnings("deprecation")
+		public void start() {
+			Debug.resetThreadAllocCount();
+			Debug.startAllocCounting();
+		}
+
+		@Override
+		public long cpuTimeNanos() {
+			return Debug.threadCpuTimeNanos();
+		}
+
+		@Override
+		@SuppressWarnings("deprecation")
+		public long allocations() {
+			return Debug.getThreadAllocCount();
+		}
+
+		@Override
+		@SuppressWarnings("deprecation")
+		public void stop() {
+			Debug.stopAllocCounting();
+		}
+	}
+
+	public static final class Result {
+		public final long[] cpuTimeNanos;
+		public final long[] allocations;
+
+		Result(int size) {
+			cpuTimeNanos = new long[size];
+			allocations = new long[size];
+		}
+
+		public long getTotalCpuTimeNanos() {
+			long total = 0;
+			for (int i = 0; i < cpuTimeNanos.length; i++) {
+				total += cpuTimeNanos[i];
+			}
+			return total;
+		}
+
+		public long getTotalAllocations() {
+			long total = 0;
+			for (int i = 0; i < allocations.length; i++) {
+				total += allocations[i];
+			}
+			return total;
+		}
+	}
+
+	private final PagerSlidingTabStrip strip;
+	private final OnPageChangeListener target;
+	private final FrameClock clock;
+	private final Meter meter;
+
+	public ScrollTraceReplayer(PagerSlidingTabStrip strip, FrameClock clock, Meter meter) {
+		this.strip = strip;
+		this.target = strip.getPageListener();
+		this.clock = clock;
+		this.meter = meter;
+	}
+
+	public Result replay(ScrollTrace trace) {
+		ViewPager pager = strip.getViewPager();
+		if (pager == null) {
+			throw new IllegalStateException("The strip is not bound to a ViewPager.");
+		}
+
+		Result result = new Result(trace.size());
+
+		// the strip gets the events from the replay only, while the pager is moved to the recorded pages
+		boolean listening = strip.isListeningToPager();
+		pager.removeOnPageChangeListener(target);
+		meter.start();
+
+		try {
+			for (int i = 0; i < trace.size(); i++) {
+				if (clock != null) {
+					clock.advanceTo(trace.getTimeNanos(i));
+				}
+				if (trace.getType(i) == ScrollTrace.EVENT_SELECTED && pager.getCurrentItem() != trace.getValue(i)) {
+					// the pager changes its current item before it reports the selection
+					pager.setCurrentItem(trace.getValue(i), false);
+				}
+
+				long cpu = meter.cpuTimeNanos();
+				long allocations = meter.allocations();
+
+				dispatch(trace, i);
+
+				result.cpuTimeNanos[i] = meter.cpuTimeNanos() - cpu;
+				result.allocations[i] = meter.allocations() - allocations;
+			}
+		} finally {
+			meter.stop();
+			if (listening) {
+				pager.addOnPageChangeListener(target);
+			}
+		}
+
+		return result;
+	}
+
+	private void dispatch(ScrollTrace trace, int index) {
+		switch (trace.getType(index)) {
+			case ScrollTrace.EVENT_SCROLLED:
+				target.onPageScrolled(trace.getValue(index), trace.getOffset(index), trace.getOffsetPixels(index));
+				break;
+			case ScrollTrace.EVENT_STATE_CHANGED:
+				target.onPageScrollStateChanged(trace.getValue(index));
+				break;
+			case ScrollTrace.EVENT_SELECTED:
+				target.onPageSelected(trace.getValue(index));
+				break;
+		}
+	}
+}
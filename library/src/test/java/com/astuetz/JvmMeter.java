@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2013 Andreas Stuetz <andreas.stuetz@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.astuetz;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measures the replaying thread with the {@link ThreadMXBean} of the JVM. Allocations are counted in
+ * bytes, and only on JVMs that implement {@code com.sun.management.ThreadMXBean}; elsewhere they stay
+ * at zero.
+ */
+class JvmMeter implements ScrollTraceReplayer.Meter {
+
+	private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+	private final com.sun.management.ThreadMXBean allocationThreads;
+
+	JvmMeter() {
+		allocationThreads = threads instanceof com.sun.management.ThreadMXBean
+				? (com.sun.management.ThreadMXBean) threads : null;
+	}
+
+	@Override
+	public void start() {
+		if (threads.isCurrentThreadCpuTimeSupported()) {
+			threads.setThreadCpuTimeEnabled(true);
+		}
+		if (allocationThreads != null && allocationThreads.isThreadAllocatedMemorySupported()) {
+			allocationThreads.setThreadAllocatedMemoryEnabled(true);
+		}
+	}
+
+	@Override
+	public long cpuTimeNanos() {
+		return threads.isCurrentThreadCpuTimeSupported() ? threads.getCurrentThreadCpuTime() : 0L;
+	}
+
+	@Override
+	public long allocations() {
+		if (allocationThreads == null || !allocationThreads.isThreadAllocatedMemoryEnabled()) {
+			return 0L;
+		}
+		return allocationThreads.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	@Override
+	public void stop() {
+	}
+}
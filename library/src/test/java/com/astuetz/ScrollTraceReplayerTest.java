@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2013 Andreas Stuetz <andreas.stuetz@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.astuetz;
+
+import android.support.v4.view.PagerAdapter;
+import android.support.v4.view.ViewPager;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.astuetz.pagerslidingtabstrip.BuildConfig;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Replays a recorded swipe into a strip on the JVM, with recorded time and a {@link JvmMeter}.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class ScrollTraceReplayerTest {
+
+	private static final int PAGES = 10;
+	private static final int PAGE_WIDTH = 480;
+
+	private ViewPager pager;
+	private PagerSlidingTabStrip strip;
+
+	@Before
+	public void setUp() {
+		pager = new ViewPager(RuntimeEnvironment.application);
+		pager.setAdapter(new TitleAdapter());
+
+		// bound but never attached to a window
+		strip = new PagerSlidingTabStrip(RuntimeEnvironment.application);
+		strip.setViewPager(pager);
+		strip.measure(View.MeasureSpec.makeMeasureSpec(PAGE_WIDTH, View.MeasureSpec.EXACTLY),
+				View.MeasureSpec.makeMeasureSpec(48, View.MeasureSpec.EXACTLY));
+		strip.layout(0, 0, PAGE_WIDTH, 48);
+	}
+
+	@Test
+	public void replaysEveryEvent() throws IOException {
+		ScrollTrace trace = roundTrip(swipe(0, 1));
+		ScrollTraceReplayer.FakeFrameClock clock = new ScrollTraceReplayer.FakeFrameClock();
+		final int[] frames = new int[1];
+		clock.addFrameListener(new ScrollTraceReplayer.FrameListener() {
+			@Override
+			public void doFrame(long frameTimeNanos) {
+				frames[0]++;
+				ShadowLooper.runUiThreadTasks();
+			}
+		});
+
+		ScrollTraceReplayer.Result result = new ScrollTraceReplayer(strip, clock, new JvmMeter()).replay(trace);
+
+		assertEquals(trace.size(), result.cpuTimeNanos.length);
+		assertEquals(trace.size(), result.allocations.length);
+		assertTrue(result.getTotalCpuTimeNanos() >= 0L);
+		assertTrue(result.getTotalAllocations() >= 0L);
+		assertTrue(frames[0] > 1);
+		assertEquals(1, pager.getCurrentItem());
+	}
+
+	@Test
+	public void detachedStripKeepsListening() {
+		assertTrue(strip.isListeningToPager());
+
+		new ScrollTraceReplayer(strip, null, new JvmMeter()).replay(swipe(0, 1));
+
+		assertTrue(strip.isListeningToPager());
+	}
+
+	/**
+	 * Records a swipe from one page to the next, one scroll event per frame.
+	 */
+	private static ScrollTrace swipe(int from, int to) {
+		ScrollTrace trace = new ScrollTrace();
+		long time = 0L;
+		long frame = ScrollTraceReplayer.FakeFrameClock.FRAME_INTERVAL_NANOS;
+
+		trace.add(ScrollTrace.EVENT_STATE_CHANGED, time, ViewPager.SCROLL_STATE_DRAGGING, 0f, 0);
+		for (int i = 1; i < 10; i++) {
+			float offset = i / 10f;
+			trace.add(ScrollTrace.EVENT_SCROLLED, time += frame, from, offset, (int) (offset * PAGE_WIDTH));
+			if (i == 5) {
+				trace.add(ScrollTrace.EVENT_STATE_CHANGED, time, ViewPager.SCROLL_STATE_SETTLING, 0f, 0);
+				trace.add(ScrollTrace.EVENT_SELECTED, time, to, 0f, 0);
+			}
+		}
+		trace.add(ScrollTrace.EVENT_SCROLLED, time += frame, to, 0f, 0);
+		trace.add(ScrollTrace.EVENT_STATE_CHANGED, time, ViewPager.SCROLL_STATE_IDLE, 0f, 0);
+		return trace;
+	}
+
+	private static ScrollTrace roundTrip(ScrollTrace trace) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		trace.writeTo(out);
+		return ScrollTrace.readFrom(new ByteArrayInputStream(out.toByteArray()));
+	}
+
+	private static class TitleAdapter extends PagerAdapter {
+
+		@Override
+		public int getCount() {
+			return PAGES;
+		}
+
+		@Override
+		public CharSequence getPageTitle(int position) {
+			return "Page " + position;
+		}
+
+		@Override
+		public Object instantiateItem(ViewGroup container, int position) {
+			View page = new View(container.getContext());
+			container.addView(page);
+			return page;
+		}
+
+		@Override
+		public void destroyItem(ViewGroup container, int position, Object object) {
+			container.removeView((View) object);
+		}
+
+		@Override
+		public boolean isViewFromObject(View view, Object object) {
+			return view == object;
+		}
+	}
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2013 Andreas Stuetz <andreas.stuetz@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.astuetz;
+
+import android.app.Activity;
+import android.support.v4.view.PagerAdapter;
+import android.support.v4.view.ViewPager;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.LinearLayout;
+
+import com.astuetz.pagerslidingtabstrip.BuildConfig;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Measures the background overdraw of the tab row, as the area covered by tab backgrounds, with
+ * and without a shared tab background.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class SharedTabBackgroundTest {
+
+	private static final int PAGES = 10;
+
+	private PagerSlidingTabStrip strip;
+
+	@Before
+	public void setUp() {
+		Activity activity = Robolectric.setupActivity(Activity.class);
+
+		ViewPager pager = new ViewPager(activity);
+		pager.setAdapter(new TitleAdapter());
+
+		strip = new PagerSlidingTabStrip(activity);
+		LinearLayout root = new LinearLayout(activity);
+		root.setOrientation(LinearLayout.VERTICAL);
+		root.addView(strip);
+		root.addView(pager);
+		activity.setContentView(root);
+
+		strip.setViewPager(pager);
+		layout();
+	}
+
+	@Test
+	public void perTabBackgroundsCoverTheWholeRow() {
+		assertEquals(rowArea(), backgroundArea());
+	}
+
+	@Test
+	public void sharedBackgroundIsNotDrawnAtRest() {
+		strip.setSharedTabBackground(true);
+		layout();
+
+		assertNull(strip.getSharedBackgroundTab());
+		assertEquals(0, backgroundArea());
+	}
+
+	@Test
+	public void sharedBackgroundCoversOnlyThePressedTab() {
+		strip.setSharedTabBackground(true);
+		layout();
+
+		strip.setPressedTab(3);
+
+		View tab = tabAt(3);
+		assertSame(tab, strip.getSharedBackgroundTab());
+		assertEquals(area(tab), backgroundArea());
+		assertTrue(backgroundArea() * PAGES <= rowArea() * 2);
+	}
+
+	@Test
+	public void sharedBackgroundFollowsFocus() {
+		strip.setSharedTabBackground(true);
+		layout();
+
+		View tab = tabAt(5);
+		// the tabs only take focus outside of touch mode
+		tab.setFocusableInTouchMode(true);
+		assertTrue(tab.requestFocus());
+
+		assertSame(tab, strip.getSharedBackgroundTab());
+		assertEquals(area(tab), backgroundArea());
+	}
+
+	private void layout() {
+		strip.measure(View.MeasureSpec.makeMeasureSpec(480, View.MeasureSpec.EXACTLY),
+				View.MeasureSpec.makeMeasureSpec(48, View.MeasureSpec.EXACTLY));
+		strip.layout(0, 0, 480, 48);
+	}
+
+	private ViewGroup tabsContainer() {
+		return (ViewGroup) strip.getChildAt(0);
+	}
+
+	private View tabAt(int position) {
+		return tabsContainer().getChildAt(position);
+	}
+
+	private long rowArea() {
+		long area = 0;
+		for (int i = 0; i < tabsContainer().getChildCount(); i++) {
+			area += area(tabAt(i));
+		}
+		return area;
+	}
+
+	private long backgroundArea() {
+		long area = 0;
+		for (int i = 0; i < tabsContainer().getChildCount(); i++) {
+			View tab = tabAt(i);
+			if (tab.getBackground() != null) {
+				area += area(tab);
+			}
+		}
+
+		View shared = strip.getSharedBackgroundTab();
+		if (shared != null) {
+			area += area(shared);
+		}
+		return area;
+	}
+
+	private static long area(View tab) {
+		return (long) tab.getWidth() * tab.getHeight();
+	}
+
+	private static class TitleAdapter extends PagerAdapter {
+
+		@Override
+		public int getCount() {
+			return PAGES;
+		}
+
+		@Override
+		public CharSequence getPageTitle(int position) {
+			return "Page " + position;
+		}
+
+		@Override
+		public Object instantiateItem(ViewGroup container, int position) {
+			View page = new View(container.getContext());
+			container.addView(page);
+			return page;
+		}
+
+		@Override
+		public void destroyItem(ViewGroup container, int position, Object object) {
+			container.removeView((View) object);
+		}
+
+		@Override
+		public boolean isViewFromObject(View view, Object object) {
+			return view == object;
+		}
+	}
+}
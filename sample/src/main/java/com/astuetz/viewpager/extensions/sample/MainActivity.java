@@ -16,6 +16,7 @@
 
 package com.astuetz.viewpager.extensions.sample;
 
+import android.content.Intent;
 import android.graphics.Color;
 import android.graphics.drawable.ColorDrawable;
 import android.graphics.drawable.Drawable;
@@ -85,6 +86,10 @@ public class MainActivity extends ActionBarActivity {
 			dialog.show(getSupportFragmentManager(), "QuickContactFragment");
 			return true;
 
+		case R.id.action_stress_test:
+			startActivity(new Intent(this, StressTestActivity.class));
+			return true;
+
 		}
 
 		return super.onOptionsItemSelected(item);
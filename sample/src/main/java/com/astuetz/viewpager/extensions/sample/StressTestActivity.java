@@ -0,0 +1,553 @@
+/*
+ * Copyright (C) 2013 Andreas Stuetz <andreas.stuetz@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.astuetz.viewpager.extensions.sample;
+
+import android.graphics.Color;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Handler;
+import android.support.v4.view.PagerAdapter;
+import android.support.v4.view.ViewPager;
+import android.support.v7.app.ActionBarActivity;
+import android.view.Choreographer;
+import android.view.Gravity;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import com.astuetz.PagerSlidingTabStrip;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Runs the strip with up to 5,000 tabs, drives the pager with fake swipes and flings, floods it with
+ * notification counts from background threads and shows frame statistics on top. Each performance
+ * mode of the strip can be switched from the menu, so the HUD compares it on and off on real hardware.
+ */
+public class StressTestActivity extends ActionBarActivity {
+
+	private static final int VARIANT_TEXT = 0;
+	private static final int VARIANT_ICON = 1;
+	private static final int VARIANT_NOTIFICATION = 2;
+
+	private static final int[] ICONS = { R.drawable.ic_launcher_chrome, R.drawable.ic_launcher_gmail,
+			R.drawable.ic_launcher_gmaps, R.drawable.ic_launcher_gplus };
+
+	private static final int BURST_THREADS = 4;
+	private static final int BURST_UPDATES = 2000;
+
+	private static final long HUD_INTERVAL_NANOS = 500000000L;
+
+	private static final int FAR_JUMP_TABS = 3;
+	private static final int TINT_ACTIVE = Color.WHITE;
+	private static final int TINT_INACTIVE = 0xFF8C9BBE;
+
+	private final Handler handler = new Handler();
+
+	private PagerSlidingTabStrip tabs;
+	private ViewPager pager;
+	private TextView hud;
+
+	private int tabCount = 100;
+	private int variant = VARIANT_TEXT;
+
+	private long rebuildNanos;
+	private int viewCount;
+
+	private final SwipeDriver swipeDriver = new SwipeDriver();
+	private FrameStats frameStats;
+
+	@Override
+	protected void onCreate(Bundle savedInstanceState) {
+		super.onCreate(savedInstanceState);
+		setContentView(R.layout.activity_stress_test);
+
+		tabs = (PagerSlidingTabStrip) findViewById(R.id.tabs);
+		pager = (ViewPager) findViewById(R.id.pager);
+		hud = (TextView) findViewById(R.id.hud);
+
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+			frameStats = new FrameStats();
+		}
+
+		// the tint modes only differ while tabs are tinted
+		tabs.setColorFilters(TINT_ACTIVE, TINT_INACTIVE, 1000L);
+
+		pager.setAdapter(createAdapter());
+		long start = System.nanoTime();
+		tabs.setViewPager(pager);
+		onRebuilt(start);
+	}
+
+	@Override
+	protected void onResume() {
+		super.onResume();
+		if (frameStats != null) {
+			frameStats.start();
+		}
+	}
+
+	@Override
+	protected void onPause() {
+		super.onPause();
+		swipeDriver.stop();
+		if (frameStats != null) {
+			frameStats.stop();
+		}
+	}
+
+	@Override
+	public boolean onCreateOptionsMenu(Menu menu) {
+		getMenuInflater().inflate(R.menu.stress_test, menu);
+		return true;
+	}
+
+	@Override
+	public boolean onPrepareOptionsMenu(Menu menu) {
+		menu.findItem(tabCountItem()).setChecked(true);
+		menu.findItem(variantItem()).setChecked(true);
+		menu.findItem(R.id.action_swipe).setChecked(swipeDriver.running && !swipeDriver.fling);
+		menu.findItem(R.id.action_fling).setChecked(swipeDriver.running && swipeDriver.fling);
+
+		menu.findItem(R.id.action_mode_tile_cache).setChecked(tabs.isTileCache());
+		menu.findItem(R.id.action_mode_icon_atlas).setChecked(tabs.isIconAtlas());
+		menu.findItem(R.id.action_mode_downsample).setChecked(tabs.isDownsampleIcons());
+		menu.findItem(R.id.action_mode_crossfade).setChecked(tabs.isCrossfadeTint());
+		menu.findItem(R.id.action_mode_adaptive_quality).setChecked(tabs.isAdaptiveQuality())
+				.setEnabled(Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN);
+		menu.findItem(R.id.action_mode_defer).setChecked(tabs.isDeferUpdatesWhileScrolling());
+		menu.findItem(R.id.action_mode_far_jump).setChecked(tabs.getFarJumpThreshold() > 0);
+		menu.findItem(R.id.action_mode_shared_background).setChecked(tabs.isSharedTabBackground());
+		return super.onPrepareOptionsMenu(menu);
+	}
+
+	@Override
+	public boolean onOptionsItemSelected(MenuItem item) {
+
+		switch (item.getItemId()) {
+
+		case R.id.action_tabs_10:
+			setTabCount(10);
+			return true;
+
+		case R.id.action_tabs_100:
+			setTabCount(100);
+			return true;
+
+		case R.id.action_tabs_1000:
+			setTabCount(1000);
+			return true;
+
+		case R.id.action_tabs_5000:
+			setTabCount(5000);
+			return true;
+
+		case R.id.action_variant_text:
+			setVariant(VARIANT_TEXT);
+			return true;
+
+		case R.id.action_variant_icon:
+			setVariant(VARIANT_ICON);
+			return true;
+
+		case R.id.action_variant_notification:
+			setVariant(VARIANT_NOTIFICATION);
+			return true;
+
+		case R.id.action_swipe:
+			toggleDriver(false);
+			return true;
+
+		case R.id.action_fling:
+			toggleDriver(true);
+			return true;
+
+		case R.id.action_badge_burst:
+			startBadgeBurst();
+			return true;
+
+		case R.id.action_mode_tile_cache:
+			tabs.setTileCache(!tabs.isTileCache());
+			updateHud();
+			return true;
+
+		case R.id.action_mode_icon_atlas:
+			// applies to tabs built afterwards
+			tabs.setIconAtlas(!tabs.isIconAtlas());
+			rebuildTabs();
+			return true;
+
+		case R.id.action_mode_downsample:
+			tabs.setDownsampleIcons(!tabs.isDownsampleIcons());
+			rebuildTabs();
+			return true;
+
+		case R.id.action_mode_crossfade:
+			tabs.setCrossfadeTint(!tabs.isCrossfadeTint());
+			rebuildTabs();
+			return true;
+
+		case R.id.action_mode_adaptive_quality:
+			tabs.setAdaptiveQuality(!tabs.isAdaptiveQuality());
+			updateHud();
+			return true;
+
+		case R.id.action_mode_defer:
+			tabs.setDeferUpdatesWhileScrolling(!tabs.isDeferUpdatesWhileScrolling());
+			updateHud();
+			return true;
+
+		case R.id.action_mode_far_jump:
+			tabs.setFarJumpThreshold(tabs.getFarJumpThreshold() > 0 ? 0 : FAR_JUMP_TABS);
+			updateHud();
+			return true;
+
+		case R.id.action_mode_shared_background:
+			tabs.setSharedTabBackground(!tabs.isSharedTabBackground());
+			updateHud();
+			return true;
+
+		}
+
+		return super.onOptionsItemSelected(item);
+	}
+
+	private int tabCountItem() {
+		switch (tabCount) {
+		case 10:
+			return R.id.action_tabs_10;
+		case 1000:
+			return R.id.action_tabs_1000;
+		case 5000:
+			return R.id.action_tabs_5000;
+		default:
+			return R.id.action_tabs_100;
+		}
+	}
+
+	private int variantItem() {
+		switch (variant) {
+		case VARIANT_ICON:
+			return R.id.action_variant_icon;
+		case VARIANT_NOTIFICATION:
+			return R.id.action_variant_notification;
+		default:
+			return R.id.action_variant_text;
+		}
+	}
+
+	private void setTabCount(int tabCount) {
+		this.tabCount = tabCount;
+		rebuild();
+	}
+
+	private void setVariant(int variant) {
+		this.variant = variant;
+		rebuild();
+	}
+
+	private void rebuild() {
+		swipeDriver.stop();
+		pager.setAdapter(createAdapter());
+		rebuildTabs();
+	}
+
+	private void rebuildTabs() {
+		long start = System.nanoTime();
+		tabs.notifyDataSetChanged();
+		onRebuilt(start);
+	}
+
+	private void onRebuilt(long start) {
+		rebuildNanos = System.nanoTime() - start;
+		viewCount = countViews(tabs);
+		updateHud();
+	}
+
+	private PagerAdapter createAdapter() {
+		switch (variant) {
+		case VARIANT_ICON:
+			return new IconAdapter(tabCount);
+		case VARIANT_NOTIFICATION:
+			return new NotificationAdapter(tabCount);
+		default:
+			return new TextAdapter(tabCount);
+		}
+	}
+
+	private static int countViews(View view) {
+		int count = 1;
+		if (view instanceof ViewGroup) {
+			ViewGroup group = (ViewGroup) view;
+			for (int i = 0; i < group.getChildCount(); i++) {
+				count += countViews(group.getChildAt(i));
+			}
+		}
+		return count;
+	}
+
+	private void toggleDriver(boolean fling) {
+		boolean restart = !swipeDriver.running || swipeDriver.fling != fling;
+		swipeDriver.stop();
+		if (restart) {
+			swipeDriver.start(fling);
+		}
+	}
+
+	/**
+	 * Sets random notification counts from several threads at once, the way pushed badge updates
+	 * arrive in an app.
+	 */
+	private void startBadgeBurst() {
+		final PagerSlidingTabStrip strip = tabs;
+		final int count = tabCount;
+		for (int t = 0; t < BURST_THREADS; t++) {
+			new Thread(new Runnable() {
+				@Override
+				public void run() {
+					Random random = new Random();
+					for (int i = 0; i < BURST_UPDATES; i++) {
+						strip.setNotificationCount(random.nextInt(count), random.nextInt(100));
+					}
+				}
+			}, "BadgeBurst-" + t).start();
+		}
+	}
+
+	private void updateHud() {
+		StringBuilder text = new StringBuilder();
+		text.append(String.format(Locale.US, "%d tabs, %d views, rebuild %.1f ms", tabCount, viewCount,
+		                          rebuildNanos / 1e6));
+		text.append('\n').append(describeModes());
+		if (frameStats != null) {
+			text.append('\n').append(frameStats.describe());
+		}
+		hud.setText(text);
+	}
+
+	private String describeModes() {
+		StringBuilder modes = new StringBuilder("modes:");
+		int length = modes.length();
+		appendMode(modes, tabs.isTileCache(), "tiles");
+		appendMode(modes, tabs.isIconAtlas(), "atlas");
+		appendMode(modes, tabs.isDownsampleIcons(), "downsample");
+		appendMode(modes, tabs.isCrossfadeTint(), "crossfade");
+		appendMode(modes, tabs.isAdaptiveQuality(), "adaptive q" + tabs.getQualityLevel());
+		appendMode(modes, tabs.isDeferUpdatesWhileScrolling(), "defer");
+		appendMode(modes, tabs.getFarJumpThreshold() > 0, "far jump");
+		appendMode(modes, tabs.isSharedTabBackground(), "shared bg");
+		if (modes.length() == length) {
+			modes.append(" none");
+		}
+		return modes.toString();
+	}
+
+	private static void appendMode(StringBuilder modes, boolean enabled, String name) {
+		if (enabled) {
+			modes.append(' ').append(name);
+		}
+	}
+
+	/**
+	 * Drags the pager with fake touch events, one page at a time, and turns around at either end. A
+	 * fling covers the page in a few fast frames, a swipe in a slow drag.
+	 */
+	private class SwipeDriver implements Runnable {
+		private static final long FRAME_MILLIS = 16;
+
+		boolean running = false;
+		boolean fling = false;
+		private int direction = 1;
+		private int frame = 0;
+
+		void start(boolean fling) {
+			this.fling = fling;
+			running = true;
+			handler.post(this);
+		}
+
+		void stop() {
+			running = false;
+			handler.removeCallbacks(this);
+			if (pager.isFakeDragging()) {
+				pager.endFakeDrag();
+			}
+		}
+
+		@Override
+		public void run() {
+			if (!running) {
+				return;
+			}
+
+			if (!pager.isFakeDragging()) {
+				int current = pager.getCurrentItem();
+				if (current >= tabCount - 1) {
+					direction = -1;
+				} else if (current <= 0) {
+					direction = 1;
+				}
+				if (!pager.beginFakeDrag()) {
+					handler.postDelayed(this, FRAME_MILLIS);
+					return;
+				}
+				frame = 0;
+			}
+
+			int frames = fling ? 3 : 30;
+			pager.fakeDragBy(-direction * pager.getWidth() * 0.6f / frames);
+
+			if (++frame < frames) {
+				handler.postDelayed(this, FRAME_MILLIS);
+			} else {
+				pager.endFakeDrag();
+				handler.postDelayed(this, fling ? 100 : 500);
+			}
+		}
+	}
+
+	/**
+	 * Collects the intervals of the last frames from the Choreographer and shows the frame rate and
+	 * percentiles twice per second.
+	 */
+	private class FrameStats implements Choreographer.FrameCallback {
+		private final long[] intervals = new long[240];
+		private final long[] sorted = new long[intervals.length];
+		private int count = 0;
+		private int next = 0;
+		private long lastFrameNanos = 0;
+		private long lastHudNanos = 0;
+
+		void start() {
+			lastFrameNanos = 0;
+			Choreographer.getInstance().postFrameCallback(this);
+		}
+
+		void stop() {
+			Choreographer.getInstance().removeFrameCallback(this);
+		}
+
+		@Override
+		public void doFrame(long frameTimeNanos) {
+			if (lastFrameNanos != 0) {
+				intervals[next] = frameTimeNanos - lastFrameNanos;
+				next = (next + 1) % intervals.length;
+				count = Math.min(count + 1, intervals.length);
+			}
+			lastFrameNanos = frameTimeNanos;
+
+			if (frameTimeNanos - lastHudNanos > HUD_INTERVAL_NANOS) {
+				lastHudNanos = frameTimeNanos;
+				updateHud();
+			}
+
+			Choreographer.getInstance().postFrameCallback(this);
+		}
+
+		String describe() {
+			if (count == 0) {
+				return "no frames yet";
+			}
+
+			long total = 0;
+			for (int i = 0; i < count; i++) {
+				sorted[i] = intervals[i];
+				total += intervals[i];
+			}
+			Arrays.sort(sorted, 0, count);
+
+			return String.format(Locale.US, "%.1f fps, p50 %.1f ms, p90 %.1f ms, p99 %.1f ms",
+			                     count * 1e9 / total, percentile(50) / 1e6, percentile(90) / 1e6,
+			                     percentile(99) / 1e6);
+		}
+
+		private long percentile(int percent) {
+			return sorted[Math.min(count - 1, count * percent / 100)];
+		}
+	}
+
+	private static class TextAdapter extends PagerAdapter {
+		private final int count;
+
+		TextAdapter(int count) {
+			this.count = count;
+		}
+
+		@Override
+		public int getCount() {
+			return count;
+		}
+
+		@Override
+		public CharSequence getPageTitle(int position) {
+			return "Tab " + position;
+		}
+
+		@Override
+		public Object instantiateItem(ViewGroup container, int position) {
+			TextView page = new TextView(container.getContext());
+			page.setGravity(Gravity.CENTER);
+			page.setText("Page " + position);
+			container.addView(page);
+			return page;
+		}
+
+		@Override
+		public void destroyItem(ViewGroup container, int position, Object object) {
+			container.removeView((View) object);
+		}
+
+		@Override
+		public boolean isViewFromObject(View view, Object object) {
+			return view == object;
+		}
+	}
+
+	private static class IconAdapter extends TextAdapter implements PagerSlidingTabStrip.IconTabProvider {
+
+		IconAdapter(int count) {
+			super(count);
+		}
+
+		@Override
+		public int getPageIconResId(int position) {
+			return ICONS[position % ICONS.length];
+		}
+
+		@Override
+		public Drawable getPageIconDrawable(int position) {
+			return null;
+		}
+	}
+
+	private static class NotificationAdapter extends TextAdapter implements PagerSlidingTabStrip.NotificationTabProvider {
+
+		NotificationAdapter(int count) {
+			super(count);
+		}
+
+		@Override
+		public boolean hasNotification(int position) {
+			return true;
+		}
+	}
+}